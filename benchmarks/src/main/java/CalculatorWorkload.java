@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds the benchmark workload to the calculator classes. Everything a benchmark touches is built
+ * up front so the measured calls only evaluate or simulate.
+ */
+public class CalculatorWorkload implements benchmarks.Workload {
+    // Roughly the top half of starting hands
+    private static final String WIDE_RANGE = "22+,A2s+,K2s+,Q4s+,J6s+,T6s+,96s+,86s+,75s+,65s,54s,"
+            + "A2o+,K7o+,Q8o+,J8o+,T8o+,98o";
+
+    private int[][] hands;
+    private int cardsPerHand;
+    private Card[][] holeCards;
+    private List<List<Card>> communityCards;
+    private Game game;
+    private Card[] heroHand;
+    private HandRange wideRange;
+
+    @Override
+    public void prepareHands(int numHands, int cardsPerHand, long seed) {
+        this.cardsPerHand = cardsPerHand;
+        int[] deck = new int[52];
+        for (int code = 0; code < 52; code++) {
+            deck[code] = code;
+        }
+        Dealer dealer = new Dealer(deck, new Xoshiro256(seed));
+        hands = new int[numHands][cardsPerHand];
+        holeCards = new Card[numHands][];
+        communityCards = new ArrayList<>(numHands);
+        for (int i = 0; i < numHands; i++) {
+            for (int j = 0; j < cardsPerHand; j++) {
+                hands[i][j] = dealer.deal();
+            }
+            dealer.restoreAll();
+            holeCards[i] = new Card[]{Cards.toCard(hands[i][0]), Cards.toCard(hands[i][1])};
+            List<Card> board = new ArrayList<>();
+            for (int j = 2; j < cardsPerHand; j++) {
+                board.add(Cards.toCard(hands[i][j]));
+            }
+            communityCards.add(board);
+        }
+    }
+
+    @Override
+    public int evaluateFast(int hand) {
+        return FastHandEvaluator.evaluate(hands[hand], cardsPerHand);
+    }
+
+    @Override
+    public long evaluateReference(int hand) {
+        return HandEvaluator.evaluateHand(holeCards[hand], communityCards.get(hand));
+    }
+
+    @Override
+    public void prepareSpot(int boardCards) {
+        game = new Game();
+        game.setEquityCache(null);
+        game.dealCardToPlayer(0, 14, 3);
+        game.dealCardToPlayer(0, 13, 3);
+        game.dealCardToPlayer(1, 12, 2);
+        game.dealCardToPlayer(1, 12, 1);
+        int[][] board = {{11, 3}, {10, 2}, {2, 1}, {3, 0}, {7, 2}};
+        for (int i = 0; i < boardCards; i++) {
+            game.addCommunityCard(board[i][0], board[i][1]);
+        }
+        heroHand = new Card[]{new Card(14, 3), new Card(13, 3)};
+        wideRange = HandRange.parse(expand(WIDE_RANGE));
+    }
+
+    @Override
+    public double[] runSim(int trials) {
+        return game.runSim(trials, 0, Long.MAX_VALUE).getPercentages();
+    }
+
+    @Override
+    public double[] rangeSim(int trials) {
+        return game.rangeSim(wideRange, heroHand, trials).getPercentages();
+    }
+
+    /**
+     * Expands "22+" and "A2s+" style shorthand into the explicit class list HandRange.parse takes.
+     */
+    private static String expand(String shorthand) {
+        String ranks = "23456789TJQKA";
+        List<String> classes = new ArrayList<>();
+        for (String token : shorthand.split(",")) {
+            if (!token.endsWith("+")) {
+                classes.add(token);
+                continue;
+            }
+            String handClass = token.substring(0, token.length() - 1);
+            int high = ranks.indexOf(handClass.charAt(0));
+            int low = ranks.indexOf(handClass.charAt(1));
+            if (high == low) {
+                for (int rank = low; rank < ranks.length(); rank++) {
+                    classes.add("" + ranks.charAt(rank) + ranks.charAt(rank));
+                }
+            } else {
+                for (int rank = low; rank < high; rank++) {
+                    classes.add("" + ranks.charAt(high) + ranks.charAt(rank) + handClass.charAt(2));
+                }
+            }
+        }
+        return String.join(",", classes);
+    }
+
+}
@@ -0,0 +1,38 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs every benchmark with the GC profiler (allocation per operation) and writes JSON results
+ * that can be diffed between versions.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar [results.json]
+ * java -jar benchmarks/target/benchmarks.jar -- [any JMH options]
+ * </pre>
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length > 0 && args[0].equals("--")) {
+            String[] jmhArgs = new String[args.length - 1];
+            System.arraycopy(args, 1, jmhArgs, 0, jmhArgs.length);
+            org.openjdk.jmh.Main.main(jmhArgs);
+            return;
+        }
+        String resultFile = args.length > 0 ? args[0] : "jmh-result.json";
+        Options options = new OptionsBuilder()
+                .include("benchmarks\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluator throughput over a fixed pool of random 5, 6 and 7 card hands. Each invocation scores
+ * the whole pool, so scores are reported per hand.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    private static final int HANDS = 4096;
+
+    @Param({"5", "6", "7"})
+    public int cards;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = Workload.load();
+        workload.prepareHands(HANDS, cards, 42);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HANDS)
+    public void fastEvaluator(Blackhole blackhole) {
+        for (int hand = 0; hand < HANDS; hand++) {
+            blackhole.consume(workload.evaluateFast(hand));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HANDS)
+    public void referenceEvaluator(Blackhole blackhole) {
+        for (int hand = 0; hand < HANDS; hand++) {
+            blackhole.consume(workload.evaluateReference(hand));
+        }
+    }
+}
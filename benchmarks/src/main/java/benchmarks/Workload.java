@@ -0,0 +1,48 @@
+package benchmarks;
+
+/**
+ * The calculator operations being measured.
+ *
+ * JMH only accepts benchmarks in a named package, and classes in a named package cannot refer to
+ * the calculator's default package classes, so the default package class {@code CalculatorWorkload}
+ * implements this interface and the benchmarks load it by name.
+ */
+public interface Workload {
+    /**
+     * Deals a pool of random hands of {@code cardsPerHand} cards to evaluate.
+     */
+    void prepareHands(int numHands, int cardsPerHand, long seed);
+
+    /**
+     * Scores a pooled hand with the table-driven evaluator.
+     */
+    int evaluateFast(int hand);
+
+    /**
+     * Scores a pooled hand with the reference evaluator.
+     */
+    long evaluateReference(int hand);
+
+    /**
+     * Sets up AsKs against QhQd with the given number of community cards already dealt.
+     */
+    void prepareSpot(int boardCards);
+
+    /**
+     * Runs a fixed number of Monte Carlo trials on the prepared spot.
+     */
+    double[] runSim(int trials);
+
+    /**
+     * Runs a fixed number of Monte Carlo trials of the prepared hero hand against a wide range.
+     */
+    double[] rangeSim(int trials);
+
+    static Workload load() {
+        try {
+            return (Workload) Class.forName("CalculatorWorkload").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Calculator classes are missing from the benchmark jar", e);
+        }
+    }
+}
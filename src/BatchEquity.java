@@ -0,0 +1,300 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Non-interactive batch mode: reads spots line by line from a file or stdin, calculates them in
+ * parallel and writes one CSV or JSON line per spot, in input order.
+ *
+ * Each line lists the players separated by spaces, then optionally {@code |} and the board, and
+ * optionally another {@code |} and dead cards (folded or exposed cards nobody can be dealt).
+ * A player is either a specific hand such as {@code AsKs} or a range such as {@code QQ,JJ,AKo:0.5}.
+ * Blank lines and lines starting with {@code #} are skipped.
+ *
+ * <pre>
+ * AsKs QhQd                    heads-up preflop
+ * AsKs QhQd 7c7d | Jh Td 2c    three hands on the flop
+ * AsKs QQ,JJ,AKo | JhTd2c5s    a hand against a range on the turn
+ * AA,KK AKs,AQs                range against range
+ * AsKs QhQd | | 9s 8s 7h 2d    heads-up preflop with four cards folded
+ * </pre>
+ *
+ * Only a bounded window of spots is in flight at once, so memory stays flat however long the
+ * input is, and a spot that fails produces an error line instead of stopping the batch. Each spot
+ * is calculated on its pool thread alone, so the thread count bounds the cores a batch uses.
+ */
+public class BatchEquity {
+    private static final String CSV_HEADER = "line,spot,method,equities,error";
+    private static final String USAGE = "java BatchEquity [--json | --csv] [--threads N] [--trials N] [--output FILE] [INPUT | -]";
+    private static final EquityEngine ENGINE = EquityEngine.shared();
+
+    private final int threads;
+    private final int window;
+    private final int trials;
+    private final boolean json;
+
+    /**
+     * @param threads Number of spots calculated at once, each on one thread
+     * @param window  Most spots read ahead of the next one to be written
+     * @param trials  Trial budget of every spot that is sampled rather than enumerated, in boards
+     *                for range against range
+     * @param json    Whether to write JSON lines instead of CSV
+     */
+    public BatchEquity(int threads, int window, int trials, boolean json) {
+        if (threads <= 0 || window < threads || trials <= 0) {
+            throw new IllegalArgumentException("Threads and trials must be positive and the window at least the thread count");
+        }
+        this.threads = threads;
+        this.window = window;
+        this.trials = trials;
+        this.json = json;
+    }
+
+    /**
+     * Usage: {@code java BatchEquity [--json | --csv] [--threads N] [--trials N] [--output FILE] [INPUT | -]}
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int trials = 100_000;
+        boolean json = false;
+        String input = "-";
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--json":
+                    json = true;
+                    break;
+                case "--csv":
+                    json = false;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--trials":
+                    trials = Integer.parseInt(args[++i]);
+                    break;
+                case "--output":
+                    output = args[++i];
+                    break;
+                default:
+                    // Anything else starting with -- is a misspelled flag, not a file to read
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i] + "; usage: " + USAGE);
+                    }
+                    input = args[i];
+            }
+        }
+        BatchEquity batch = new BatchEquity(threads, threads * 16, trials, json);
+        try (BufferedReader in = input.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(input));
+             Writer out = output == null
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                     : Files.newBufferedWriter(Path.of(output))) {
+            batch.run(in, out);
+        }
+    }
+
+    /**
+     * Calculates every spot read from {@code in} and writes the results to {@code out} in input order.
+     */
+    public void run(BufferedReader in, Writer out) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            if (!json) {
+                out.write(CSV_HEADER);
+                out.write('\n');
+            }
+            // Futures in input order; the oldest is written before another line is read once the window is full
+            ArrayDeque<Future<SpotResult>> inFlight = new ArrayDeque<>();
+            long lineNumber = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String spot = line.trim();
+                if (spot.isEmpty() || spot.startsWith("#")) {
+                    continue;
+                }
+                if (inFlight.size() >= window) {
+                    write(inFlight.poll(), out);
+                }
+                long number = lineNumber;
+                inFlight.add(pool.submit(() -> calculate(number, spot, trials)));
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), out);
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void write(Future<SpotResult> future, Writer out) throws IOException, InterruptedException {
+        SpotResult result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            // calculate reports its own failures, so this is a bug rather than a bad spot
+            throw new IllegalStateException("Spot calculation failed", e.getCause());
+        }
+        out.write(json ? result.toJson() : result.toCsv());
+        out.write('\n');
+    }
+
+    /**
+     * Calculates one spot, capturing any problem with it in the result.
+     */
+    static SpotResult calculate(long lineNumber, String spot, int trials) {
+        try {
+            return calculateSpot(lineNumber, spot, trials);
+        } catch (RuntimeException e) {
+            return new SpotResult(lineNumber, spot, null, null, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static SpotResult calculateSpot(long lineNumber, String spot, int trials) {
+        String[] sections = spot.split("\\|", -1);
+        if (sections.length > 3) {
+            throw new IllegalArgumentException("Expected players | board | dead cards");
+        }
+        String[] players = sections[0].trim().split("\\s+");
+        int[] board = sections.length > 1 ? Cards.parseAll(sections[1]) : new int[0];
+        int[] deadCards = sections.length > 2 ? Cards.parseAll(sections[2]) : new int[0];
+        long dead = Cards.mask(deadCards, deadCards.length);
+        if (players.length < 2) {
+            throw new IllegalArgumentException("At least two players are needed");
+        }
+        if (board.length > 5) {
+            throw new IllegalArgumentException("A board has at most five cards");
+        }
+
+        int[][] hands = new int[players.length][];
+        List<Integer> rangeSeats = new ArrayList<>();
+        for (int i = 0; i < players.length; i++) {
+            hands[i] = parseHand(players[i]);
+            if (hands[i] == null) {
+                rangeSeats.add(i);
+            }
+        }
+
+        if (rangeSeats.isEmpty()) {
+            EquityRequest request = EquityRequest.of(hands, board, dead).withTrials(trials);
+            String method = ENGINE.isExact(request) ? "exact" : "monte-carlo";
+            // Samples on this thread rather than splitting across the common pool, unlike calculate(request)
+            EquityResult result = ENGINE.calculate(request, null);
+            return new SpotResult(lineNumber, spot, method, result.getPlayerEquities(), null);
+        }
+        if (players.length != 2) {
+            throw new IllegalArgumentException("Ranges are only supported heads-up");
+        }
+        if (rangeSeats.size() == 2) {
+            EquityRequest request = EquityRequest.of(new int[0][], board, dead).withTrials(trials)
+                    .withTargetStandardError(EquityEngine.DEFAULT_RANGE_STANDARD_ERROR);
+            RangeVsRange.Result result = ENGINE.rangeVsRange(request, HandRange.parse(players[0]),
+                    HandRange.parse(players[1]));
+            return new SpotResult(lineNumber, spot, result.isExact() ? "range-exact" : "range-sampled",
+                    new double[]{result.getHeroEquity(), result.getVillainEquity()}, null);
+        }
+        // One hand against one range; rangeSim reports the hand first
+        int handSeat = rangeSeats.get(0) == 0 ? 1 : 0;
+        HandRange range = HandRange.parse(players[1 - handSeat]);
+        EquityRequest request = EquityRequest.of(new int[][]{hands[handSeat]}, board, dead).withTrials(trials);
+        double[] equities = ENGINE.rangeEquity(request, range, null).getPlayerEquities();
+        if (handSeat == 1) {
+            equities = new double[]{equities[1], equities[0]};
+        }
+        return new SpotResult(lineNumber, spot, "range-monte-carlo", equities, null);
+    }
+
+    /**
+     * Returns the two card codes of a specific hand such as "AsKs", or null if the text is a range.
+     */
+    private static int[] parseHand(String text) {
+        if (text.length() != 4 || text.indexOf(',') >= 0) {
+            return null;
+        }
+        try {
+            return Cards.parseAll(text);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Outcome of one input line: every player's equity, or why it could not be calculated.
+     */
+    static class SpotResult {
+        final long lineNumber;
+        final String spot;
+        final String method;
+        final double[] equities;
+        final String error;
+
+        SpotResult(long lineNumber, String spot, String method, double[] equities, String error) {
+            this.lineNumber = lineNumber;
+            this.spot = spot;
+            this.method = method;
+            this.equities = equities;
+            this.error = error;
+        }
+
+        String toCsv() {
+            StringBuilder line = new StringBuilder();
+            line.append(lineNumber).append(',').append(csvQuote(spot)).append(',');
+            if (error != null) {
+                return line.append(",,").append(csvQuote(error)).toString();
+            }
+            line.append(method).append(',');
+            for (int i = 0; i < equities.length; i++) {
+                line.append(i == 0 ? "" : ";").append(String.format(Locale.ROOT, "%.4f", equities[i]));
+            }
+            return line.append(',').toString();
+        }
+
+        String toJson() {
+            StringBuilder line = new StringBuilder();
+            line.append("{\"line\":").append(lineNumber).append(",\"spot\":").append(jsonQuote(spot));
+            if (error != null) {
+                return line.append(",\"error\":").append(jsonQuote(error)).append('}').toString();
+            }
+            line.append(",\"method\":\"").append(method).append("\",\"equities\":[");
+            for (int i = 0; i < equities.length; i++) {
+                line.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT, "%.4f", equities[i]));
+            }
+            return line.append("]}").toString();
+        }
+
+        private static String csvQuote(String text) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+
+        private static String jsonQuote(String text) {
+            StringBuilder quoted = new StringBuilder("\"");
+            for (char c : text.toCharArray()) {
+                if (c == '"' || c == '\\') {
+                    quoted.append('\\').append(c);
+                } else if (c < 0x20) {
+                    quoted.append(String.format("\\u%04x", (int) c));
+                } else {
+                    quoted.append(c);
+                }
+            }
+            return quoted.append('"').toString();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * Source of random numbers for dealing cards.
+ * Implementations are not expected to be thread-safe; each dealing thread owns one.
+ * A {@link java.util.SplittableRandom} can be plugged in as {@code new SplittableRandom(seed)::nextInt}.
+ */
+@FunctionalInterface
+public interface CardRandom {
+    /**
+     * Returns a random int from 0 (inclusive) to bound (exclusive).
+     */
+    int nextInt(int bound);
+}
@@ -0,0 +1,157 @@
+/**
+ * Primitive card encoding used by the evaluation, simulation and range code.
+ *
+ * A card is an int code from 0 to 51, {@code suit * 13 + (rank - 2)}, which is also its index in
+ * {@link Game}'s deck. A set of cards is a long mask with bit {@code code} set for each card, so
+ * every suit is a 13 bit block of rank bits (bit 0 the deuce, bit 12 the ace) starting at bit
+ * {@code 13 * suit}. {@link Card} objects are only needed at the edges, to talk to the GUI and
+ * {@link Player}.
+ */
+public final class Cards {
+    public static final int NUM_CARDS = 52;
+    // One suit's block of rank bits
+    public static final long RANK_BITS = (1L << 13) - 1;
+    public static final long FULL_DECK = (1L << NUM_CARDS) - 1;
+
+    private static final String RANK_CHARS = "23456789TJQKA";
+    private static final String SUIT_CHARS = "shdc";
+
+    private Cards() {
+    }
+
+    /**
+     * Returns the code of a rank (2-14) and suit (0-3).
+     */
+    public static int code(int rank, int suit) {
+        return suit * 13 + (rank - 2);
+    }
+
+    /**
+     * Returns the rank of a card code, 2-14.
+     */
+    public static int rank(int code) {
+        return code % 13 + 2;
+    }
+
+    public static int suit(int code) {
+        return code / 13;
+    }
+
+    public static int fromCard(Card card) {
+        return code(card.rank, card.suit);
+    }
+
+    /**
+     * Returns a new, undealt card object for a code.
+     */
+    public static Card toCard(int code) {
+        return new Card(rank(code), suit(code));
+    }
+
+    public static long mask(int code) {
+        return 1L << code;
+    }
+
+    /**
+     * Returns the mask of the first {@code count} codes of an array.
+     */
+    public static long mask(int[] codes, int count) {
+        long mask = 0;
+        for (int i = 0; i < count; i++) {
+            mask |= 1L << codes[i];
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the mask of some card objects, skipping nulls.
+     */
+    public static long mask(Iterable<Card> cards) {
+        long mask = 0;
+        for (Card card : cards) {
+            if (card != null) {
+                mask |= 1L << fromCard(card);
+            }
+        }
+        return mask;
+    }
+
+    public static boolean contains(long mask, int code) {
+        return (mask & (1L << code)) != 0;
+    }
+
+    public static int count(long mask) {
+        return Long.bitCount(mask);
+    }
+
+    /**
+     * Returns the codes in a mask in increasing order.
+     */
+    public static int[] codes(long mask) {
+        int[] codes = new int[Long.bitCount(mask)];
+        for (int i = 0; mask != 0; i++) {
+            codes[i] = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        return codes;
+    }
+
+    /**
+     * Returns the rank bits (bit 0 the deuce) of the cards of one suit in a mask.
+     */
+    public static int suitRanks(long mask, int suit) {
+        return (int) (mask >>> (13 * suit) & RANK_BITS);
+    }
+
+    /**
+     * Returns the rank bits of every rank present in a mask, in any suit.
+     */
+    public static int rankMask(long mask) {
+        return suitRanks(mask, 0) | suitRanks(mask, 1) | suitRanks(mask, 2) | suitRanks(mask, 3);
+    }
+
+    /**
+     * Renames the suits of every card in a mask; {@code permutation[suit]} is the new suit.
+     */
+    public static long permuteSuits(long mask, int[] permutation) {
+        long renamed = 0;
+        for (int suit = 0; suit < 4; suit++) {
+            renamed |= (long) suitRanks(mask, suit) << (13 * permutation[suit]);
+        }
+        return renamed;
+    }
+
+    /**
+     * Returns a card code as two ASCII characters, e.g. "As" or "Td".
+     */
+    public static String toString(int code) {
+        return "" + RANK_CHARS.charAt(code % 13) + SUIT_CHARS.charAt(suit(code));
+    }
+
+    /**
+     * Parses a card written as by {@link #toString(int)}.
+     */
+    public static int parse(String text) {
+        int rank = text.length() == 2 ? RANK_CHARS.indexOf(Character.toUpperCase(text.charAt(0))) : -1;
+        int suit = text.length() == 2 ? SUIT_CHARS.indexOf(Character.toLowerCase(text.charAt(1))) : -1;
+        if (rank < 0 || suit < 0) {
+            throw new IllegalArgumentException("Invalid card: " + text);
+        }
+        return suit * 13 + rank;
+    }
+
+    /**
+     * Parses a list of cards written either separated by spaces or run together, e.g. "JhTd2c".
+     */
+    public static int[] parseAll(String text) {
+        String cards = text.replaceAll("\\s+", "");
+        if (cards.length() % 2 != 0) {
+            throw new IllegalArgumentException("Invalid cards: " + text.trim());
+        }
+        int[] codes = new int[cards.length() / 2];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = parse(cards.substring(2 * i, 2 * i + 2));
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+/**
+ * Index of the 1326 two card starting hands (combos) and their card conflicts.
+ *
+ * Combo indices run over card code pairs (first < second) in increasing order. Sets of
+ * combos are stored as bitmaps of {@link #WORDS} longs, so intersecting or filtering
+ * combo sets is a handful of word-level operations.
+ */
+public class Combos {
+    public static final int NUM_COMBOS = 1326;
+    public static final int WORDS = (NUM_COMBOS + 63) / 64;
+
+    private static final int[] FIRST_CARD = new int[NUM_COMBOS];
+    private static final int[] SECOND_CARD = new int[NUM_COMBOS];
+    private static final int[][] INDEX = new int[52][52];
+    // Combos holding each card
+    private static final long[][] CARD_COMBOS = new long[52][WORDS];
+    // For every combo, the combos that share at least one card with it (itself included)
+    private static final long[][] CONFLICTS = new long[NUM_COMBOS][WORDS];
+
+    static {
+        int combo = 0;
+        for (int first = 0; first < 52; first++) {
+            for (int second = first + 1; second < 52; second++) {
+                FIRST_CARD[combo] = first;
+                SECOND_CARD[combo] = second;
+                INDEX[first][second] = combo;
+                INDEX[second][first] = combo;
+                set(CARD_COMBOS[first], combo);
+                set(CARD_COMBOS[second], combo);
+                combo++;
+            }
+        }
+        for (combo = 0; combo < NUM_COMBOS; combo++) {
+            long[] first = CARD_COMBOS[FIRST_CARD[combo]];
+            long[] second = CARD_COMBOS[SECOND_CARD[combo]];
+            for (int w = 0; w < WORDS; w++) {
+                CONFLICTS[combo][w] = first[w] | second[w];
+            }
+        }
+    }
+
+    private Combos() {
+    }
+
+    /**
+     * Returns the combo index of two different card codes, in either order.
+     */
+    public static int index(int firstCard, int secondCard) {
+        if (firstCard == secondCard) {
+            throw new IllegalArgumentException("A combo needs two different cards");
+        }
+        return INDEX[firstCard][secondCard];
+    }
+
+    public static int firstCard(int combo) {
+        return FIRST_CARD[combo];
+    }
+
+    public static int secondCard(int combo) {
+        return SECOND_CARD[combo];
+    }
+
+    /**
+     * Returns the card mask (bit per card code) of a combo.
+     */
+    public static long cardMask(int combo) {
+        return Cards.mask(FIRST_CARD[combo]) | Cards.mask(SECOND_CARD[combo]);
+    }
+
+    /**
+     * Returns the bitmap of combos sharing a card with the given combo. The array must not be modified.
+     */
+    public static long[] conflicts(int combo) {
+        return CONFLICTS[combo];
+    }
+
+    /**
+     * Writes into {@code blocked} the bitmap of every combo holding at least one card of a card mask.
+     */
+    public static void blockedBy(long cardMask, long[] blocked) {
+        Arrays.fill(blocked, 0L);
+        while (cardMask != 0) {
+            int card = Long.numberOfTrailingZeros(cardMask);
+            cardMask &= cardMask - 1;
+            long[] holding = CARD_COMBOS[card];
+            for (int w = 0; w < WORDS; w++) {
+                blocked[w] |= holding[w];
+            }
+        }
+    }
+
+    public static void set(long[] bits, int combo) {
+        bits[combo >>> 6] |= 1L << combo;
+    }
+
+    public static boolean contains(long[] bits, int combo) {
+        return (bits[combo >>> 6] & (1L << combo)) != 0;
+    }
+
+    /**
+     * Returns a combo as text, higher rank first, e.g. "A♠K♠".
+     */
+    public static String toString(int combo) {
+        int first = FIRST_CARD[combo];
+        int second = SECOND_CARD[combo];
+        if (Cards.rank(first) < Cards.rank(second)) {
+            return cardToString(second) + cardToString(first);
+        }
+        return cardToString(first) + cardToString(second);
+    }
+
+    private static String cardToString(int code) {
+        return Cards.toCard(code).toString();
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Deals random cards from a set of live card codes.
+ *
+ * The live cards are kept at the front of an int array. Dealing swaps the chosen card
+ * with the last live card and shrinks the live count, and restoring just grows the count
+ * again, so both are O(1). Each dealer owns its array and random source and is meant to
+ * be used by one thread; {@link #reset(long, CardRandom)} lets that thread reuse it.
+ */
+public class Dealer {
+    private final int[] cards = new int[52];
+    // Index of each card code in cards, kept up to date by every swap
+    private final int[] positions = new int[52];
+    private CardRandom random;
+    // Number of cards the dealer was loaded with, live or dealt
+    private int size;
+    private int liveCount;
+
+    /**
+     * @param liveCards Codes of the cards that can be dealt (copied)
+     * @param random    Random source used to pick cards
+     */
+    public Dealer(int[] liveCards, CardRandom random) {
+        System.arraycopy(liveCards, 0, cards, 0, liveCards.length);
+        this.random = random;
+        this.size = liveCards.length;
+        this.liveCount = size;
+        for (int i = 0; i < size; i++) {
+            positions[cards[i]] = i;
+        }
+    }
+
+    /**
+     * Creates an empty dealer, to be loaded with {@link #reset(long, CardRandom)}.
+     */
+    Dealer() {
+    }
+
+    /**
+     * Reloads the dealer with a new set of live cards and random source, without allocating.
+     *
+     * @param liveMask Bit mask of the card codes that can be dealt
+     * @param random   Random source used to pick cards
+     */
+    public void reset(long liveMask, CardRandom random) {
+        this.random = random;
+        int count = 0;
+        for (long bits = liveMask; bits != 0; bits &= bits - 1) {
+            int card = Long.numberOfTrailingZeros(bits);
+            cards[count] = card;
+            positions[card] = count++;
+        }
+        size = count;
+        liveCount = count;
+    }
+
+    /**
+     * Removes a random live card and returns its code.
+     */
+    public int deal() {
+        int card = cards[random.nextInt(liveCount)];
+        remove(card);
+        return card;
+    }
+
+    /**
+     * Removes a specific live card, as if it had been dealt. It comes back with the next {@link #restore(int)}.
+     */
+    public void remove(int card) {
+        int index = positions[card];
+        if (index >= liveCount || cards[index] != card) {
+            throw new IllegalArgumentException("Card is not live: " + card);
+        }
+        liveCount--;
+        int last = cards[liveCount];
+        cards[index] = last;
+        positions[last] = index;
+        cards[liveCount] = card;
+        positions[card] = liveCount;
+    }
+
+    /**
+     * Returns whether a card code can currently be dealt.
+     */
+    public boolean isLive(int card) {
+        int index = positions[card];
+        return index < liveCount && cards[index] == card;
+    }
+
+    /**
+     * Returns the last {@code count} dealt cards to the live set.
+     */
+    public void restore(int count) {
+        if (count > size - liveCount) {
+            throw new IllegalStateException("Cannot restore more cards than were dealt");
+        }
+        liveCount += count;
+    }
+
+    /**
+     * Returns every dealt card to the live set.
+     */
+    public void restoreAll() {
+        liveCount = size;
+    }
+
+    public int liveCount() {
+        return liveCount;
+    }
+}
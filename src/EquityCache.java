@@ -0,0 +1,106 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bounded least-recently-used cache of equity tallies keyed on canonical spots, with hit and
+ * miss counters. Cached tallies are shared and must not be modified. A spot holds one tally,
+ * so callers decide whether a sampled one has enough trials for them.
+ */
+public class EquityCache {
+    private final int capacity;
+    private final LinkedHashMap<SuitIsomorphism.Key, EquityTally> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity Maximum number of spots kept before the least recently used one is evicted
+     */
+    public EquityCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        // Access order turns the map into an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SuitIsomorphism.Key, EquityTally> eldest) {
+                return size() > EquityCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached tally of a spot, or null, counting a hit or a miss.
+     */
+    public synchronized EquityTally get(SuitIsomorphism.Key key) {
+        return get(key, tally -> true);
+    }
+
+    /**
+     * Returns the cached tally of a spot if it is good enough for the caller, such as one with
+     * enough trials, or null. A tally that is cached but not usable counts as a miss.
+     */
+    public synchronized EquityTally get(SuitIsomorphism.Key key, Predicate<EquityTally> usable) {
+        EquityTally tally = entries.get(key);
+        if (tally == null || !usable.test(tally)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return tally;
+    }
+
+    /**
+     * Returns the cached tally of a spot, or null, without counting a hit or a miss or refreshing its age.
+     */
+    public synchronized EquityTally peek(SuitIsomorphism.Key key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Returns whether a spot is cached, without counting a hit or a miss or refreshing its age.
+     */
+    public synchronized boolean contains(SuitIsomorphism.Key key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized void put(SuitIsomorphism.Key key, EquityTally tally) {
+        entries.put(key, tally);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the fraction of lookups that were hits, or 0 before the first lookup.
+     */
+    public synchronized double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d/%d spots, %d hits, %d misses", entries.size(), capacity, hits, misses);
+    }
+}
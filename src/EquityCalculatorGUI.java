@@ -4,6 +4,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class EquityCalculatorGUI {
     private JFrame frame;
@@ -11,6 +13,9 @@ public class EquityCalculatorGUI {
     private JPanel cardGridPanel;
     private JButton[][] cardButtons;
     private List<int[]> selectedCards = new ArrayList<>();
+    // Completed by the click that selects the last card of the current selection, null between selections
+    private CompletableFuture<List<int[]>> pendingSelection;
+    private int cardsToSelect;
     private JLabel selectedCardsLabel;
     private Game game;
     private JLabel player1HandLabel;
@@ -19,6 +24,10 @@ public class EquityCalculatorGUI {
     private static String[] ranks = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K", "A"};
     private static String[] suits = {"♠", "♥", "♦", "♣"};
     private boolean[][] cardSelected; // Tracks permanently selected cards
+    private JLabel resultsLabel;
+    private EquityWorker equityWorker; // The calculation in progress, if any
+    // Combo and board pairs dealt for a range; estimates are shown as they come in
+    private static final int RANGE_TRIALS = 500_000;
 
     public EquityCalculatorGUI() {
         game = new Game();
@@ -42,6 +51,9 @@ public class EquityCalculatorGUI {
         createCardGrid();
 
         frame.setVisible(true);
+
+        // Build the evaluator tables and compile the simulation loops while the user picks cards
+        CompletableFuture.runAsync(Game::warmUp);
     }
 
     private void createCardGrid() {
@@ -85,12 +97,17 @@ public class EquityCalculatorGUI {
     }
 
     /**
-     * This method handles the process of selecting a specified number of cards asynchronously.
+     * Starts selecting a number of cards. The returned future is completed on the Event Dispatch
+     * Thread by the click that selects the last card, so nothing waits or polls in between.
+     * Starting a new selection cancels the previous one.
      *
      * @param numberOfCards The number of cards to select.
-     * @param callback      Callback to execute when the specified number of cards have been selected.
+     * @return The selected cards as {rank index, suit} pairs, in click order.
      */
-    public void selectCards(int numberOfCards, SelectionCallback callback) {
+    public CompletableFuture<List<int[]>> selectCards(int numberOfCards) {
+        if (pendingSelection != null) {
+            pendingSelection.cancel(false);
+        }
         selectedCards.clear(); // Clear any existing selections
         updateSelectedCardsLabel();
 
@@ -103,22 +120,19 @@ public class EquityCalculatorGUI {
             }
         }
 
-        // Use a thread to monitor the selection asynchronously
-        new Thread(() -> {
-            try {
-                while (selectedCards.size() < numberOfCards) {
-                    Thread.sleep(100); // Wait for user input
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Card selection was interrupted!", e);
-            }
-            // Once the desired number of cards are selected, execute the callback
-            SwingUtilities.invokeLater(() -> {
-                callback.onCardsSelected(selectedCards); // Pass selected cards to the callback
-                resetCardButtons(); // Reset the grid for the next round
-            });
-        }).start();
+        cardsToSelect = numberOfCards;
+        pendingSelection = new CompletableFuture<>();
+        return pendingSelection;
+    }
+
+    /**
+     * Selects a number of cards and then runs a callback on the Event Dispatch Thread.
+     *
+     * @param numberOfCards The number of cards to select.
+     * @param callback      Callback to execute when the specified number of cards have been selected.
+     */
+    public void selectCards(int numberOfCards, SelectionCallback callback) {
+        selectCards(numberOfCards).thenAccept(callback::onCardsSelected);
     }
 
     private class CardButtonListener implements ActionListener {
@@ -131,9 +145,11 @@ public class EquityCalculatorGUI {
         @Override
         public void actionPerformed(ActionEvent e) {
             JButton sourceButton = (JButton) e.getSource();
+            // The spot is changing, so whatever is being calculated is stale
+            cancelCalculation();
 
-            // Prevent selecting more than the required number of cards in a session
-            if (selectedCards.size() >= selectedCardsLabel.getText().length()) {
+            // Prevent selecting cards when none are asked for, or more than the required number
+            if (pendingSelection == null || selectedCards.size() >= cardsToSelect) {
                 JOptionPane.showMessageDialog(frame, "You reached the limit!");
                 return;
             }
@@ -160,6 +176,16 @@ public class EquityCalculatorGUI {
             // Add the card to selected list and update the label
             selectedCards.add(cardInfo);
             updateSelectedCardsLabel();
+
+            // The last card completes the selection; the grid is reset first so the
+            // continuation can start the next selection straight away
+            if (selectedCards.size() == cardsToSelect) {
+                List<int[]> cards = new ArrayList<>(selectedCards);
+                CompletableFuture<List<int[]>> selection = pendingSelection;
+                pendingSelection = null;
+                resetCardButtons();
+                selection.complete(cards);
+            }
         }
     }
 
@@ -253,7 +279,7 @@ public class EquityCalculatorGUI {
         // Allow card selection for the chosen number of community cards
         selectCards(numberOfCommunityCards, communityCards -> {
             for (int[] card : communityCards) {
-                game.addCommunityCard(card[0], card[1]); // Add to the game (as community cards)
+                game.addCommunityCard(card[0] + 2, card[1]); // Add to the game (rank index 0 is a deuce)
             }
             // Display the selected community cards
             communityCardsLabel.setText("Community Cards: " + formatCards(communityCards));
@@ -280,34 +306,87 @@ public class EquityCalculatorGUI {
     }
 
     private void displaySimulationResults() {
-        // Run the simulation
-        double[] results = game.runSim(); // Assuming results[0] is P1's win percentage, results[1] is P2's
-
-        // Prepare the results as a formatted string
-        String resultText = String.format(
-                "<html><center>"
-                        + "<h2>Simulation Results</h2>"
-                        + "<p>Player 1 Win Percentage: %.2f%%</p>"
-                        + "<p>Player 2 Win Percentage: %.2f%%</p>"
-                        + "</center></html>",
-                results[0], results[1]
-        );
+        // The spot is read here on the EDT, which owns the game; the worker only sees the immutable request
+        EquityRequest request;
+        try {
+            request = game.toRequest();
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, "Calculation failed: " + e.getMessage());
+            return;
+        }
+        EquityEngine engine = game.getEngine();
+        startCalculation("Simulation Results", listener -> engine.calculate(request, listener));
+    }
 
-        // Create and configure the results label
-        JLabel resultsLabel = new JLabel(resultText, SwingConstants.CENTER);
-        resultsLabel.setFont(new Font("Arial", Font.BOLD, 18));
-        resultsLabel.setBackground(Color.LIGHT_GRAY);
-        resultsLabel.setOpaque(true);
-        resultsLabel.setBounds(10, 200, 960, 150); // Position and size (adjust as needed)
+    /**
+     * Runs a calculation in the background, replacing any calculation still running, and shows
+     * each intermediate estimate and the final result in the results label.
+     */
+    private void startCalculation(String heading, Function<ProgressListener, EquityResult> calculation) {
+        cancelCalculation();
+        showResults(heading, null);
+        equityWorker = new EquityWorker(calculation, result -> showResults(heading, result),
+                error -> JOptionPane.showMessageDialog(frame, "Calculation failed: " + error.getMessage()));
+        equityWorker.execute();
+    }
 
-        // Add the results label to the frame
-        frame.add(resultsLabel);
+    private void cancelCalculation() {
+        if (equityWorker != null && !equityWorker.isDone()) {
+            equityWorker.cancel(true);
+        }
+        equityWorker = null;
+    }
 
-        // Update the frame to show the new label
-        frame.revalidate();
+    /**
+     * Shows a result in the results label, or that one is on its way when {@code result} is null.
+     */
+    private void showResults(String heading, EquityResult result) {
+        String body;
+        if (result == null) {
+            body = "<p>Calculating...</p>";
+        } else {
+            double[] percentages = result.getPercentages();
+            double[] errors = result.getStandardErrors();
+            String status = result.isConverged() ? "exact or converged" : "estimate";
+            body = String.format("<p>Player 1 Win Percentage: %.2f%% (+/- %.2f)</p>"
+                            + "<p>Player 2 Win Percentage: %.2f%% (+/- %.2f)</p>"
+                            + "<p>%,d boards, %s</p>",
+                    percentages[0], EquityResult.Z_95 * errors[0], percentages[1], EquityResult.Z_95 * errors[1],
+                    result.getTrials(), status);
+        }
+
+        // Create the results label the first time, then update it in place
+        if (resultsLabel == null) {
+            resultsLabel = new JLabel("", SwingConstants.CENTER);
+            resultsLabel.setFont(new Font("Arial", Font.BOLD, 18));
+            resultsLabel.setBackground(Color.LIGHT_GRAY);
+            resultsLabel.setOpaque(true);
+            resultsLabel.setBounds(10, 200, 960, 150); // Position and size (adjust as needed)
+            frame.add(resultsLabel);
+            frame.revalidate();
+        }
+        resultsLabel.setText("<html><center><h2>" + heading + "</h2>" + body + "</center></html>");
         frame.repaint();
     }
 
+    /**
+     * Starts calculating preflop equity as soon as both hands are known, while the board is still
+     * being entered. The hands are read on the EDT and only the request goes to the background;
+     * the result lands in the game's equity cache, where {@link Game#calculateEquity(ProgressListener)}
+     * picks it up if no board is added.
+     */
+    private void startSpeculation() {
+        List<Player> players = game.getPlayers();
+        int[][] hands = new int[players.size()][];
+        for (int i = 0; i < hands.length; i++) {
+            Card[] hand = players.get(i).getHand();
+            hands[i] = new int[]{Cards.fromCard(hand[0]), Cards.fromCard(hand[1])};
+        }
+        EquityRequest request = EquityRequest.of(hands, new int[0]);
+        EquityEngine engine = game.getEngine();
+        CompletableFuture.runAsync(() -> engine.calculate(request));
+    }
+
     private static String formatCards(List<int[]> cards) {
         StringBuilder cardString = new StringBuilder();
         for (int[] card : cards) {
@@ -352,10 +431,11 @@ public class EquityCalculatorGUI {
         JOptionPane.showMessageDialog(frame, "Select Player 2's cards manually.");
         selectCards(2, cards -> {
             for (int[] card : cards) {
-                game.getPlayers().get(1).addCardToHand(new Card(card[0], card[1]));
+                game.dealCardToPlayer(1, card[0] + 2, card[1]);
             }
             // Display the selected cards for Player 2
             player2HandLabel.setText("Player 2 Hand: " + formatCards(cards));
+            startSpeculation();
 
             // Prompt the user to select community cards
             SwingUtilities.invokeLater(() -> selectCommunityCards());
@@ -374,20 +454,11 @@ public class EquityCalculatorGUI {
         JButton[][] rangeButtons = new JButton[13][13]; // Button grid
         boolean[][] rangeTable = new boolean[13][13];   // Tracks selected hands as a 2D array of booleans
 
-        // Ranks for poker cards
-        String[] ranks = {"A", "K", "Q", "J", "10", "9", "8", "7", "6", "5", "4", "3", "2"};
-
         // Populate the grid with buttons
         for (int i = 0; i < 13; i++) {
             for (int j = 0; j < 13; j++) {
-                String hand;
-                if (i == j) {
-                    hand = ranks[i] + ranks[j]; // Pocket pairs
-                } else if (i < j) {
-                    hand = ranks[i] + ranks[j] + "o"; // Offsuit hands
-                } else {
-                    hand = ranks[j] + ranks[i] + "s"; // Suited hands
-                }
+                // Same layout as the game's range table: suited above the diagonal, offsuit below
+                String hand = Game.rangeCode(i, j);
 
                 // Create a button for each hand
                 JButton button = new JButton(hand);
@@ -402,6 +473,7 @@ public class EquityCalculatorGUI {
 
                 // Toggle selection state and update button background on click
                 button.addActionListener(e -> {
+                    cancelCalculation(); // The range is changing
                     rangeTable[row][col] = !rangeTable[row][col]; // Toggle the selection
                     if (rangeTable[row][col]) {
                         button.setBackground(Color.GRAY); // Highlight selected button
@@ -419,35 +491,23 @@ public class EquityCalculatorGUI {
         // Create a confirm button
         JButton confirmButton = new JButton("Confirm Range");
         confirmButton.addActionListener(e -> {
-            // Pass the 2D boolean array to the rangeSim method
-            double[] results = game.rangeSim(rangeTable, game.getPlayers().get(0).getHand()); // Passing the boolean[][] directly to the method
-
-            // Format and display the results
-            String resultText = String.format(
-                    "<html><center>"
-                            + "<h2>Range Simulation Results</h2>"
-                            + "<p>Player 1 Win Percentage: %.2f%%</p>"
-                            + "<p>Player 2 Win Percentage: %.2f%%</p>"
-                            + "</center></html>",
-                    results[0], results[1]
-            );
-
-            // Create and configure the results label
-            JLabel resultsLabel = new JLabel(resultText, SwingConstants.CENTER);
-            resultsLabel.setFont(new Font("Arial", Font.BOLD, 18));
-            resultsLabel.setBackground(Color.LIGHT_GRAY);
-            resultsLabel.setOpaque(true);
-            resultsLabel.setBounds(10, 200, 960, 150); // Adjust position as needed
-
-            // Add the results label to the main frame
-            frame.add(resultsLabel);
-
-            // Update the main frame to show the results
-            frame.revalidate();
-            frame.repaint();
-
-            // Close the range selection frame
-            rangeFrame.dispose();
+            // Copy the selection so later toggles only affect the next calculation
+            HandRange range = HandRange.fromTable(rangeTable);
+            if (range.isEmpty()) {
+                JOptionPane.showMessageDialog(rangeFrame, "Select at least one hand.");
+                return;
+            }
+            Card[] hand = game.getPlayers().get(0).getHand();
+            EquityRequest request;
+            try {
+                request = game.toRangeRequest(hand, RANGE_TRIALS);
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(rangeFrame, "Calculation failed: " + ex.getMessage());
+                return;
+            }
+            EquityEngine engine = game.getEngine();
+            // The range frame stays open so the range can be adjusted and confirmed again
+            startCalculation("Range Simulation Results", listener -> engine.rangeEquity(request, range, listener));
         });
 
         // Add components to the range frame
@@ -470,7 +530,7 @@ public class EquityCalculatorGUI {
             // Player 1 card selection
             gui.selectCards(2, player1Cards -> {
                 for (int[] card : player1Cards) {
-                    gui.game.getPlayers().get(0).addCardToHand(new Card(card[0], card[1]));
+                    gui.game.dealCardToPlayer(0, card[0] + 2, card[1]);
                 }
                 gui.player1HandLabel.setText("Player 1 Hand: " + formatCards(player1Cards));
 
@@ -0,0 +1,496 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+
+/**
+ * Thread-safe equity calculator for {@link EquityRequest}s.
+ *
+ * The engine holds only its configuration (random source, cache and preflop table), so one
+ * instance can serve any number of threads without locking. Everything a calculation writes
+ * while it runs lives in a per-thread {@link Scratch} or in the tally it returns.
+ */
+public class EquityEngine {
+    // Boards with at most this many runouts left are enumerated exactly instead of sampled
+    static final long EXACT_ENUMERATION_LIMIT = 100_000;
+    // Standard error, in percentage points, that callers with no setting of their own sample range against range to
+    public static final double DEFAULT_RANGE_STANDARD_ERROR = 0.25;
+    // Range against range scores every combo of both ranges per board, so far fewer boards are needed
+    private static final long RANGE_EXACT_BOARD_LIMIT = 2_000;
+    // Boards dealt between convergence and time limit checks in simulate
+    private static final int SIMULATION_BATCH = 1000;
+    // Fractional part of the golden ratio, the step of the sequence rangeEquity picks combos along
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+    // Trials between intermediate results passed to a ProgressListener
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+    // Spots already calculated by any caller, shared across suit-isomorphic spots
+    private static final EquityEngine SHARED = new EquityEngine(Xoshiro256::new, new EquityCache(10_000), null);
+
+    private final LongFunction<CardRandom> randomSource;
+    private final EquityCache cache;
+    private final PreflopEquityTable preflopTable;
+
+    /**
+     * @param randomSource Creates a generator from a seed for each simulation
+     * @param cache        Cache of calculated spots, or null to always recalculate
+     * @param preflopTable Table for preflop heads-up and range against range equity, or null
+     */
+    public EquityEngine(LongFunction<CardRandom> randomSource, EquityCache cache, PreflopEquityTable preflopTable) {
+        this.randomSource = randomSource;
+        this.cache = cache;
+        this.preflopTable = preflopTable;
+    }
+
+    /**
+     * Returns the engine used by default, whose cache is shared by every caller.
+     */
+    public static EquityEngine shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns whether {@link #calculate(EquityRequest)} enumerates every remaining board rather than
+     * sampling. Spots with hole cards still to deal are always sampled.
+     */
+    public boolean isExact(EquityRequest request) {
+        return request.hasFullHands() && request.remainingBoards() <= EXACT_ENUMERATION_LIMIT;
+    }
+
+    /**
+     * Calculates equity exactly when few enough runouts remain, otherwise by a parallel Monte Carlo
+     * simulation of the request's trial budget. Results are cached by canonical spot; a sampled
+     * result is reused only for requests it has enough trials or precision for.
+     */
+    public EquityResult calculate(EquityRequest request) {
+        long startTime = System.nanoTime();
+        if (usePreflopTable(request)) {
+            double[] percentages = preflopTable.headsUp(request.getHand(0), request.getHand(1));
+            return EquityResult.exactHeadsUp(percentages, PreflopEquityTable.BOARDS, System.nanoTime() - startTime);
+        }
+        boolean exact = isExact(request);
+        EquityTally tally = tally(request);
+        long elapsedNanos = System.nanoTime() - startTime;
+        return exact ? EquityResult.exact(tally, elapsedNanos) : EquityResult.fromTally(tally, false, elapsedNanos);
+    }
+
+    /**
+     * Calculates equity like {@link #calculate(EquityRequest)}, streaming intermediate Monte Carlo
+     * estimates to a listener, which can also stop the calculation. Everything runs on the calling
+     * thread, so callers with their own thread pool can use it with a null listener to keep each
+     * calculation on one thread.
+     *
+     * @param listener Receives intermediate results, or null
+     */
+    public EquityResult calculate(EquityRequest request, ProgressListener listener) {
+        // A spot calculated before (possibly speculatively) to enough trials comes straight from the cache
+        if (isExact(request) || (cache != null && covers(cache.peek(request.canonicalKey()), request))) {
+            return calculate(request);
+        }
+        return simulate(request, listener);
+    }
+
+    /**
+     * Enumerates every remaining board. Every player must hold two cards.
+     */
+    public EquityResult enumerate(EquityRequest request) {
+        if (!request.hasFullHands()) {
+            throw new IllegalArgumentException("Enumeration needs two hole cards for every player");
+        }
+        long startTime = System.nanoTime();
+        return EquityResult.exact(enumerateAllBoards(request), System.nanoTime() - startTime);
+    }
+
+    /**
+     * Deals random boards in batches until player one's equity reaches the request's target
+     * standard error, its trial budget is used up or its time limit passes.
+     *
+     * @param listener Receives an intermediate result every {@value #PROGRESS_INTERVAL} trials and can stop the run, or null
+     */
+    public EquityResult simulate(EquityRequest request, ProgressListener listener) {
+        long startTime = System.nanoTime();
+        long timeLimitNanos = request.timeLimitMillis >= Long.MAX_VALUE / 1_000_000
+                ? Long.MAX_VALUE : request.timeLimitMillis * 1_000_000;
+        int maxTrials = request.maxTrials;
+        EquityTally tally = new EquityTally(request.numPlayers);
+        boolean converged = false;
+
+        Scratch scratch = Scratch.acquire();
+        try {
+            Dealer dealer = scratch.dealer;
+            dealer.reset(request.liveMask, randomSource.apply(System.nanoTime()));
+            int trials = 0;
+            while (trials < maxTrials) {
+                int batch = Math.min(SIMULATION_BATCH, maxTrials - trials);
+                simulateBoards(request, dealer, scratch, batch, tally);
+                trials += batch;
+
+                if (request.targetStandardError > 0 && tally.equityStandardError(0) <= request.targetStandardError) {
+                    converged = true;
+                    break;
+                }
+                if (System.nanoTime() - startTime >= timeLimitNanos) {
+                    break;
+                }
+                if (listener != null && trials % PROGRESS_INTERVAL == 0 && trials < maxTrials
+                        && !listener.onProgress(EquityResult.fromTally(tally, false, System.nanoTime() - startTime))) {
+                    break;
+                }
+            }
+        } finally {
+            scratch.release();
+        }
+        return EquityResult.fromTally(tally, converged, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Runs the request's trial budget split across the common fork-join pool.
+     * Results are deterministic for a given seed and number of splits.
+     *
+     * @param seed   Seed for the per-split random number generators
+     * @param splits Number of independent chunks the trials are divided into
+     */
+    public EquityResult simulateParallel(EquityRequest request, long seed, int splits) {
+        long startTime = System.nanoTime();
+        EquityTally tally = parallelTally(request, seed, splits);
+        return EquityResult.fromTally(tally, false, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Simulates player one's hand against a weighted range for the request's trial budget.
+     * Combos that share a card with the hand, the board or the dead cards are removed first;
+     * each trial then draws an opponent combo in proportion to its weight and deals the rest
+     * of the board around both hands. Preflop with no other cards out, the engine's preflop
+     * table answers exactly instead.
+     *
+     * The histogram is filled as the trials run: combos that are suit renamings of each other
+     * against the hand pool their trials, and combos are drawn evenly enough that each class
+     * gets its weight's share of them. Its mean is the returned equity; each class's equity is
+     * only as precise as its share of the budget allows.
+     *
+     * @param request  Player one's hand, the board and the dead cards
+     * @param range    The opponent's range
+     * @param listener Receives an intermediate result every {@value #PROGRESS_INTERVAL} trials and can stop the run, or null
+     * @return The hand's results as player one, the range's as player two, with a histogram of
+     *         the hand's equity against each opponent combo
+     */
+    public EquityResult rangeEquity(EquityRequest request, HandRange range, ProgressListener listener) {
+        long startTime = System.nanoTime();
+        if (request.numPlayers < 1 || request.holeCards[0] == FastHandEvaluator.NO_CARD
+                || request.holeCards[1] == FastHandEvaluator.NO_CARD) {
+            throw new IllegalArgumentException("Player one needs two cards to play against a range");
+        }
+        long knownCards = Cards.FULL_DECK & ~request.liveMask;
+        HandRange liveRange = range.without(knownCards);
+        if (liveRange.isEmpty()) {
+            throw new IllegalArgumentException("Every combo in the range is blocked by the known cards");
+        }
+        if (preflopTable != null && request.board.length == 0 && Long.bitCount(request.liveMask) == 50) {
+            return preflopRangeEquity(request.getHand(0), liveRange, startTime);
+        }
+        int numCommunity = request.board.length;
+        int numDealt = 5 - numCommunity;
+        int trials = request.maxTrials;
+        // The hero's cards and the fixed board never change; the villain's two cards come first in drawn
+        FastHandEvaluator.PartialHand heroHand = request.hands[0];
+        FastHandEvaluator.PartialHand fixedBoard = FastHandEvaluator.PartialHand.of(request.board, 0, numCommunity);
+        EquityTally tally = new EquityTally(2);
+        EquityHistogram histogram = new EquityHistogram();
+
+        Scratch scratch = Scratch.acquire();
+        try {
+            int[] drawn = scratch.cards;
+            int[] scores = scratch.scores;
+            // The hero's pot share and trial count against each class of combos that are suit
+            // renamings of each other given the hand and board, for the equity histogram
+            int[] comboClasses = scratch.comboClasses;
+            int numClasses = classifyCombos(request, liveRange, comboClasses);
+            long[] classShares = scratch.classShares;
+            int[] classTrials = scratch.classTrials;
+            Arrays.fill(classShares, 0, numClasses, 0L);
+            Arrays.fill(classTrials, 0, numClasses, 0);
+            CardRandom random = randomSource.apply(System.nanoTime());
+            Dealer dealer = scratch.dealer;
+            dealer.reset(request.liveMask, random);
+            // Combos are picked along a golden ratio sequence from a random start rather than by
+            // independent draws: every trial still draws each combo in proportion to its weight, but
+            // each combo's count of trials stays within a few of its weight's share at any point
+            double fraction = (double) random.nextInt(1 << 30) / (1 << 30);
+            for (int t = 0; t < trials; t++) {
+                int combo = liveRange.comboAt(fraction);
+                fraction += GOLDEN_RATIO_FRACTION;
+                if (fraction >= 1.0) {
+                    fraction -= 1.0;
+                }
+                drawn[0] = liveRange.firstCard(combo);
+                drawn[1] = liveRange.secondCard(combo);
+                dealer.remove(drawn[0]);
+                dealer.remove(drawn[1]);
+                for (int k = 0; k < numDealt; k++) {
+                    drawn[2 + k] = dealer.deal();
+                }
+                scores[0] = heroHand.evaluate(drawn, 2, numDealt);
+                scores[1] = fixedBoard.evaluate(drawn, 0, 2 + numDealt);
+                tally.record(scores, Math.max(scores[0], scores[1]));
+                int comboClass = comboClasses[combo];
+                classShares[comboClass] += scores[0] > scores[1] ? EquityTally.POT : scores[0] == scores[1] ? EquityTally.POT / 2 : 0;
+                classTrials[comboClass]++;
+                dealer.restore(2 + numDealt);
+                if (listener != null && (t + 1) % PROGRESS_INTERVAL == 0 && t + 1 < trials
+                        && !listener.onProgress(EquityResult.fromTally(tally, false, System.nanoTime() - startTime))) {
+                    break;
+                }
+            }
+            // Each class's equity, weighted by its trials, so the histogram's mean is the hero's equity
+            for (int c = 0; c < numClasses; c++) {
+                if (classTrials[c] > 0) {
+                    histogram.add(100.0 * classShares[c] / EquityTally.POT / classTrials[c], classTrials[c]);
+                }
+            }
+        } finally {
+            scratch.release();
+        }
+        return EquityResult.fromTally(tally, false, System.nanoTime() - startTime).withHistogram(histogram);
+    }
+
+    /**
+     * Numbers the classes of a range's combos that play identically against the hand on the board,
+     * being suit renamings of each other that leave the hand, board and live cards unchanged, such
+     * as the three combos of KK without a spade against AsKs preflop.
+     *
+     * @param classes Receives each combo's class, from 0
+     * @return The number of classes
+     */
+    private static int classifyCombos(EquityRequest request, HandRange range, int[] classes) {
+        int[][] symmetries = SuitIsomorphism.symmetries(Cards.mask(request.getHand(0), 2),
+                Cards.mask(request.board, request.board.length), request.liveMask);
+        Map<Long, Integer> classOf = new HashMap<>();
+        for (int combo = 0; combo < range.size(); combo++) {
+            long comboMask = Cards.mask(range.firstCard(combo)) | Cards.mask(range.secondCard(combo));
+            long canonical = comboMask;
+            for (int[] symmetry : symmetries) {
+                canonical = Math.min(canonical, Cards.permuteSuits(comboMask, symmetry));
+            }
+            Integer comboClass = classOf.putIfAbsent(canonical, classOf.size());
+            classes[combo] = comboClass == null ? classOf.size() - 1 : comboClass;
+        }
+        return classOf.size();
+    }
+
+    /**
+     * Answers a preflop hand against range query with no other cards out from the preflop table,
+     * averaging the exact result against each combo by its weight.
+     */
+    private EquityResult preflopRangeEquity(int[] hand, HandRange range, long startTime) {
+        double[] percentages = new double[3];
+        EquityHistogram histogram = new EquityHistogram();
+        double totalWeight = range.totalWeight();
+        for (int combo = 0; combo < range.size(); combo++) {
+            double weight = range.weight(combo);
+            double[] outcome = preflopTable.headsUp(hand, new int[]{range.firstCard(combo), range.secondCard(combo)});
+            for (int i = 0; i < 3; i++) {
+                percentages[i] += weight * outcome[i] / totalWeight;
+            }
+            histogram.add(outcome[0] + outcome[2] / 2, weight);
+        }
+        return EquityResult.exactHeadsUp(percentages, PreflopEquityTable.BOARDS, System.nanoTime() - startTime)
+                .withHistogram(histogram);
+    }
+
+    /**
+     * Calculates the equity of one weighted range against another on the request's board, exactly
+     * when few enough boards remain and from sampled boards otherwise. Hole cards in the request
+     * are treated as dead. Sampling stops at the request's target standard error or after its
+     * trial budget, counted in boards; every board scores all combos of both ranges, so a target
+     * such as {@link #DEFAULT_RANGE_STANDARD_ERROR} is usually reached well within the default budget.
+     */
+    public RangeVsRange.Result rangeVsRange(EquityRequest request, HandRange hero, HandRange villain) {
+        long blocked = Cards.FULL_DECK & ~request.liveMask & ~Cards.mask(request.board, request.board.length);
+        if (preflopTable != null && request.board.length == 0 && blocked == 0) {
+            return preflopTable.rangeVsRange(hero, villain);
+        }
+        RangeVsRange calculation = new RangeVsRange(hero, villain, request.board, blocked);
+        return calculation.calculate(RANGE_EXACT_BOARD_LIMIT, request.maxTrials, request.targetStandardError,
+                randomSource.apply(System.nanoTime()));
+    }
+
+    /**
+     * Builds the evaluator tables and runs a few short simulations so the JIT has compiled the
+     * dealing and evaluation loops before the first real calculation.
+     */
+    public static void warmUp() {
+        EquityEngine engine = new EquityEngine(Xoshiro256::new, null, null);
+        EquityRequest request = EquityRequest.of(new int[][]{{Cards.code(14, 0), Cards.code(13, 0)},
+                {Cards.code(12, 1), Cards.code(12, 2)}}, new int[0]).withTrials(10_000);
+        for (int i = 0; i < 20; i++) {
+            engine.simulate(request, null);
+        }
+    }
+
+    public EquityCache getCache() {
+        return cache;
+    }
+
+    public PreflopEquityTable getPreflopTable() {
+        return preflopTable;
+    }
+
+    /**
+     * Returns whether the spot is two full hands preflop with no other cards out of the deck.
+     */
+    private boolean usePreflopTable(EquityRequest request) {
+        return preflopTable != null && request.numPlayers == 2 && request.board.length == 0
+                && request.hasFullHands() && Long.bitCount(request.liveMask) == 48;
+    }
+
+    private EquityTally tally(EquityRequest request) {
+        SuitIsomorphism.Key key = null;
+        if (cache != null) {
+            key = request.canonicalKey();
+            EquityTally cached = cache.get(key, tally -> covers(tally, request));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        EquityTally tally;
+        if (isExact(request)) {
+            tally = enumerateAllBoards(request);
+        } else {
+            tally = parallelTally(request, System.nanoTime(), ForkJoinPool.commonPool().getParallelism() * 4);
+        }
+        if (key != null) {
+            cache.put(key, tally);
+        }
+        return tally;
+    }
+
+    /**
+     * Returns whether a cached tally of the request's spot answers it: every tally of an exact
+     * spot is a full enumeration, and a sampled one must have the request's trials or precision.
+     */
+    private boolean covers(EquityTally tally, EquityRequest request) {
+        return tally != null && (isExact(request) || tally.getBoards() >= request.maxTrials
+                || (request.targetStandardError > 0 && tally.equityStandardError(0) <= request.targetStandardError));
+    }
+
+    private EquityTally enumerateAllBoards(EquityRequest request) {
+        EquityTally tally = new EquityTally(request.numPlayers);
+        Scratch scratch = Scratch.acquire();
+        try {
+            int numLive = Cards.count(request.liveMask);
+            int[] live = scratch.live;
+            int index = 0;
+            for (long bits = request.liveMask; bits != 0; bits &= bits - 1) {
+                live[index++] = Long.numberOfTrailingZeros(bits);
+            }
+            enumerateBoards(live, numLive, 0, 0, 5 - request.board.length, scratch.cards, request.hands,
+                    scratch.scores, tally);
+        } finally {
+            scratch.release();
+        }
+        return tally;
+    }
+
+    private EquityTally parallelTally(EquityRequest request, long seed, int splits) {
+        if (splits <= 0) {
+            throw new IllegalArgumentException("Splits must be positive");
+        }
+        return ParallelSimulation.run(ForkJoinPool.commonPool(), request, seed, splits, randomSource);
+    }
+
+    /**
+     * Deals {@code boards} random boards from the dealer and tallies every showdown, one board at a
+     * time. The dealer must hold the request's live cards.
+     */
+    static void simulateBoards(EquityRequest request, Dealer dealer, Scratch scratch, int boards, EquityTally tally) {
+        if (request.missingCards > 0) {
+            simulateMissingCards(request, dealer, scratch, boards, tally);
+            return;
+        }
+        int numDealt = 5 - request.board.length;
+        int[] dealt = scratch.cards;
+        int[] scores = scratch.scores;
+        for (int b = 0; b < boards; b++) {
+            for (int k = 0; k < numDealt; k++) {
+                dealt[k] = dealer.deal();
+            }
+            int best = FastHandEvaluator.evaluateShowdown(request.hands, dealt, 0, numDealt, scores);
+            tally.record(scores, best);
+            dealer.restore(numDealt);
+        }
+    }
+
+    /**
+     * Deals {@code boards} random boards together with the hole cards the request leaves out, and
+     * tallies every showdown. Each board has its own hands, so they are scored one board at a time.
+     */
+    private static void simulateMissingCards(EquityRequest request, Dealer dealer, Scratch scratch, int boards,
+                                             EquityTally tally) {
+        int numPlayers = request.numPlayers;
+        int numCommunity = request.board.length;
+        int[] holeCards = scratch.holeCards;
+        int[] board = scratch.cards;
+        int[] scores = scratch.scores;
+        System.arraycopy(request.board, 0, board, 0, numCommunity);
+        for (int b = 0; b < boards; b++) {
+            for (int i = 0; i < 2 * numPlayers; i++) {
+                int card = request.holeCards[i];
+                holeCards[i] = card == FastHandEvaluator.NO_CARD ? dealer.deal() : card;
+            }
+            for (int k = numCommunity; k < 5; k++) {
+                board[k] = dealer.deal();
+            }
+            int best = FastHandEvaluator.evaluateShowdown(holeCards, numPlayers, board, 5, scores);
+            tally.record(scores, best);
+            dealer.restore(request.missingCards + 5 - numCommunity);
+        }
+    }
+
+    /**
+     * Recursively picks the missing board cards from the live cards (in increasing index order)
+     * and tallies each showdown.
+     */
+    private static void enumerateBoards(int[] live, int numLive, int start, int filled, int needed, int[] dealt,
+                                        FastHandEvaluator.PartialHand[] hands, int[] scores, EquityTally tally) {
+        if (filled == needed) {
+            int best = FastHandEvaluator.evaluateShowdown(hands, dealt, 0, needed, scores);
+            tally.record(scores, best);
+            return;
+        }
+        for (int i = start; i <= numLive - (needed - filled); i++) {
+            dealt[filled] = live[i];
+            enumerateBoards(live, numLive, i + 1, filled + 1, needed, dealt, hands, scores, tally);
+        }
+    }
+
+    /**
+     * Per-thread buffers for one calculation at a time. A nested calculation on the same thread,
+     * such as one started from a progress listener, gets a fresh instance instead.
+     */
+    static final class Scratch {
+        final int[] cards = new int[7];
+        final int[] scores = new int[10];
+        final int[] holeCards = new int[20];
+        final int[] comboClasses = new int[Combos.NUM_COMBOS];
+        final long[] classShares = new long[Combos.NUM_COMBOS];
+        final int[] classTrials = new int[Combos.NUM_COMBOS];
+        final int[] live = new int[Cards.NUM_CARDS];
+        final Dealer dealer = new Dealer();
+        private boolean inUse;
+
+        static Scratch acquire() {
+            Scratch scratch = SCRATCH.get();
+            if (scratch.inUse) {
+                scratch = new Scratch();
+            }
+            scratch.inUse = true;
+            return scratch;
+        }
+
+        void release() {
+            inUse = false;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.Locale;
+
+/**
+ * Weighted distribution of equities from 0 to 100 percent, kept in fixed-width bins.
+ *
+ * Only the bin totals are stored, so adding a value is one array update and a histogram takes
+ * the same space however many values went into it. Percentiles are interpolated inside a bin
+ * and are therefore accurate to one bin width, 2 points with {@link #DEFAULT_BINS}; they are
+ * also clamped to the smallest and largest equity added, so a histogram of a single value
+ * returns that value for every percentile. The mean, minimum and maximum are tracked exactly.
+ */
+public class EquityHistogram {
+    public static final int DEFAULT_BINS = 50;
+
+    private final double[] binWeights;
+    private double totalWeight;
+    private double weightedSum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param bins Number of equal-width bins between 0 and 100
+     */
+    public EquityHistogram(int bins) {
+        if (bins <= 0) {
+            throw new IllegalArgumentException("A histogram needs at least one bin");
+        }
+        this.binWeights = new double[bins];
+    }
+
+    public EquityHistogram() {
+        this(DEFAULT_BINS);
+    }
+
+    /**
+     * Adds an equity with a weight, such as the number of trials or a combo's range weight.
+     *
+     * @param equity Equity as a percentage; values outside 0 to 100 go to the first or last bin
+     */
+    public void add(double equity, double weight) {
+        int bins = binWeights.length;
+        int bin = (int) (equity * bins / 100.0);
+        binWeights[Math.max(0, Math.min(bins - 1, bin))] += weight;
+        totalWeight += weight;
+        weightedSum += weight * equity;
+        if (weight > 0) {
+            min = Math.min(min, equity);
+            max = Math.max(max, equity);
+        }
+    }
+
+    /**
+     * Adds every bin of a histogram with the same number of bins into this one.
+     */
+    public void add(EquityHistogram other) {
+        if (other.binWeights.length != binWeights.length) {
+            throw new IllegalArgumentException("Histograms have different bin counts");
+        }
+        for (int i = 0; i < binWeights.length; i++) {
+            binWeights[i] += other.binWeights[i];
+        }
+        totalWeight += other.totalWeight;
+        weightedSum += other.weightedSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the equity below which {@code percent} of the weight lies, to within one bin width
+     * and never outside the smallest and largest equity added.
+     *
+     * @param percent Percentile from 0 to 100
+     */
+    public double percentile(double percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (totalWeight == 0) {
+            return Double.NaN;
+        }
+        double target = totalWeight * percent / 100.0;
+        double width = 100.0 / binWeights.length;
+        double below = 0;
+        for (int i = 0; i < binWeights.length; i++) {
+            if (binWeights[i] > 0 && below + binWeights[i] >= target) {
+                return Math.max(min, Math.min(max, width * (i + (target - below) / binWeights[i])));
+            }
+            below += binWeights[i];
+        }
+        return max;
+    }
+
+    /**
+     * Returns the share of the weight, from 0 to 1, with equity below the given percentage,
+     * interpolating inside the bin it falls in: 0 up to the smallest equity added and 1 above the largest.
+     */
+    public double fractionBelow(double equity) {
+        if (totalWeight == 0) {
+            return Double.NaN;
+        }
+        if (equity <= min) {
+            return 0.0;
+        }
+        if (equity > max) {
+            return 1.0;
+        }
+        double position = Math.max(0.0, Math.min(100.0, equity)) * binWeights.length / 100.0;
+        int bin = (int) position;
+        double below = 0;
+        for (int i = 0; i < bin && i < binWeights.length; i++) {
+            below += binWeights[i];
+        }
+        if (bin < binWeights.length) {
+            below += binWeights[bin] * (position - bin);
+        }
+        return below / totalWeight;
+    }
+
+    /**
+     * Returns the weighted mean equity, as a percentage.
+     */
+    public double mean() {
+        return totalWeight == 0 ? Double.NaN : weightedSum / totalWeight;
+    }
+
+    /**
+     * Returns the smallest equity added, or NaN if the histogram is empty.
+     */
+    public double min() {
+        return totalWeight == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Returns the largest equity added, or NaN if the histogram is empty.
+     */
+    public double max() {
+        return totalWeight == 0 ? Double.NaN : max;
+    }
+
+    public int getBins() {
+        return binWeights.length;
+    }
+
+    /**
+     * Returns the total weight of equities in a bin, which covers {@code [bin, bin + 1) * 100 / bins} percent.
+     */
+    public double getBinWeight(int bin) {
+        return binWeights[bin];
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "mean %.2f%%, p10 %.1f%%, p25 %.1f%%, median %.1f%%, p75 %.1f%%, p90 %.1f%%",
+                mean(), percentile(10), percentile(25), percentile(50), percentile(75), percentile(90));
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Immutable description of a spot to calculate: every player's hole cards, the board, cards
+ * known to be out of play and how long to sample for.
+ *
+ * The cards are checked and the players' partial hands are built once, when the request is
+ * created, so a request can be handed to an {@link EquityEngine} from any number of threads.
+ * The {@code with} methods return modified copies that share those read-only parts.
+ */
+public final class EquityRequest {
+    public static final int DEFAULT_TRIALS = 100_000;
+    private static final int MAX_PLAYERS = 10;
+
+    // Two card codes per player, FastHandEvaluator.NO_CARD for cards not dealt yet
+    final int[] holeCards;
+    final int numPlayers;
+    final int[] board;
+    final long deadCards;
+    final long liveMask;
+    // Hole cards not given, dealt from the live cards on every trial
+    final int missingCards;
+    // Each player's hole cards plus the board
+    final FastHandEvaluator.PartialHand[] hands;
+    final int maxTrials;
+    final double targetStandardError;
+    final long timeLimitMillis;
+
+    private EquityRequest(int[] holeCards, int[] board, long deadCards) {
+        this.holeCards = holeCards;
+        this.numPlayers = holeCards.length / 2;
+        this.board = board;
+        this.deadCards = deadCards;
+        long known = deadCards;
+        int missing = 0;
+        for (int card : holeCards) {
+            known = addCard(known, card);
+            if (card == FastHandEvaluator.NO_CARD) {
+                missing++;
+            }
+        }
+        this.missingCards = missing;
+        for (int card : board) {
+            known = addCard(known, card);
+        }
+        this.liveMask = Cards.FULL_DECK & ~known & ~deadCards;
+        this.hands = FastHandEvaluator.partialHands(holeCards, numPlayers, board, board.length);
+        this.maxTrials = DEFAULT_TRIALS;
+        this.targetStandardError = 0;
+        this.timeLimitMillis = Long.MAX_VALUE;
+    }
+
+    private EquityRequest(EquityRequest spot, int maxTrials, double targetStandardError, long timeLimitMillis) {
+        this.holeCards = spot.holeCards;
+        this.numPlayers = spot.numPlayers;
+        this.board = spot.board;
+        this.deadCards = spot.deadCards;
+        this.liveMask = spot.liveMask;
+        this.missingCards = spot.missingCards;
+        this.hands = spot.hands;
+        this.maxTrials = maxTrials;
+        this.targetStandardError = targetStandardError;
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Creates a request from card codes with no dead cards and the default options.
+     *
+     * @param hands Each player's hole cards, up to two per player; missing cards are dealt from the
+     *              live cards on every trial, so such spots are always sampled
+     * @param board Community card codes, up to five
+     */
+    public static EquityRequest of(int[][] hands, int[] board) {
+        return of(hands, board, 0L);
+    }
+
+    /**
+     * Creates a request from card codes, excluding the dead cards from every deal.
+     *
+     * @param deadCards Bit mask of cards that are out of play, such as folded or exposed cards
+     */
+    public static EquityRequest of(int[][] hands, int[] board, long deadCards) {
+        if (hands.length > MAX_PLAYERS) {
+            throw new IllegalArgumentException("A table seats at most " + MAX_PLAYERS + " players");
+        }
+        if (board.length > 5) {
+            throw new IllegalArgumentException("A board has at most five cards");
+        }
+        if ((deadCards & ~Cards.FULL_DECK) != 0) {
+            throw new IllegalArgumentException("Dead card mask has bits outside the deck");
+        }
+        int[] holeCards = new int[2 * hands.length];
+        for (int i = 0; i < hands.length; i++) {
+            if (hands[i].length > 2) {
+                throw new IllegalArgumentException("A hand has at most two cards");
+            }
+            for (int j = 0; j < 2; j++) {
+                holeCards[2 * i + j] = j < hands[i].length ? hands[i][j] : FastHandEvaluator.NO_CARD;
+            }
+        }
+        return new EquityRequest(holeCards, board.clone(), deadCards);
+    }
+
+    /**
+     * Returns a copy that deals at most {@code maxTrials} boards when sampling.
+     */
+    public EquityRequest withTrials(int maxTrials) {
+        if (maxTrials <= 0) {
+            throw new IllegalArgumentException("Trial budget must be positive");
+        }
+        return new EquityRequest(this, maxTrials, targetStandardError, timeLimitMillis);
+    }
+
+    /**
+     * Returns a copy that stops sampling once player one's equity has this standard error, in percentage points.
+     */
+    public EquityRequest withTargetStandardError(double targetStandardError) {
+        return new EquityRequest(this, maxTrials, targetStandardError, timeLimitMillis);
+    }
+
+    /**
+     * Returns a copy that starts no new batch of boards after this much wall-clock time.
+     */
+    public EquityRequest withTimeLimit(long timeLimitMillis) {
+        return new EquityRequest(this, maxTrials, targetStandardError, timeLimitMillis);
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * Returns a player's two hole card codes, {@link FastHandEvaluator#NO_CARD} for missing cards.
+     */
+    public int[] getHand(int player) {
+        return new int[]{holeCards[2 * player], holeCards[2 * player + 1]};
+    }
+
+    public int[] getBoard() {
+        return board.clone();
+    }
+
+    public long getDeadCards() {
+        return deadCards;
+    }
+
+    /**
+     * Returns the bit mask of cards that can still be dealt.
+     */
+    public long getLiveMask() {
+        return liveMask;
+    }
+
+    public int getMaxTrials() {
+        return maxTrials;
+    }
+
+    public double getTargetStandardError() {
+        return targetStandardError;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    /**
+     * Returns how many distinct boards can still be dealt.
+     */
+    public long remainingBoards() {
+        int n = Long.bitCount(liveMask);
+        int k = 5 - board.length;
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether every player holds two cards.
+     */
+    public boolean hasFullHands() {
+        return missingCards == 0;
+    }
+
+    /**
+     * Returns the key this spot shares with every suit renaming of it.
+     */
+    public SuitIsomorphism.Key canonicalKey() {
+        return SuitIsomorphism.canonicalKey(holeCards, numPlayers, board, board.length, liveMask);
+    }
+
+    private static long addCard(long known, int card) {
+        if (card == FastHandEvaluator.NO_CARD) {
+            return known;
+        }
+        if (card < 0 || card >= Cards.NUM_CARDS) {
+            throw new IllegalArgumentException("Not a card code: " + card);
+        }
+        if (Cards.contains(known, card)) {
+            throw new IllegalArgumentException("Card used twice: " + Cards.toString(card));
+        }
+        return known | Cards.mask(card);
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Outcome of an equity calculation: player one win, player two win and tie percentages,
+ * with the standard error of each, and every player's equity (share of the pot) with its
+ * standard error. Exact results have zero standard errors. Results built from a tally also
+ * carry how often each player made each hand category.
+ */
+public class EquityResult {
+    // Two-sided z value for a 95% confidence interval
+    public static final double Z_95 = 1.959963984540054;
+
+    private final double[] percentages;
+    private final double[] standardErrors;
+    private final double[] playerEquities;
+    private final double[] playerStandardErrors;
+    private final long trials;
+    private final boolean converged;
+    private final long elapsedNanos;
+    // Distribution of player one's equity, when the calculation collected one
+    private final EquityHistogram histogram;
+    // Per player, the percentage of boards ending in each hand category, or null
+    private final double[][] categoryPercentages;
+
+    private EquityResult(double[] percentages, double[] standardErrors, double[] playerEquities,
+                         double[] playerStandardErrors, long trials, boolean converged, long elapsedNanos,
+                         EquityHistogram histogram, double[][] categoryPercentages) {
+        this.percentages = percentages;
+        this.standardErrors = standardErrors;
+        this.playerEquities = playerEquities;
+        this.playerStandardErrors = playerStandardErrors;
+        this.trials = trials;
+        this.converged = converged;
+        this.elapsedNanos = elapsedNanos;
+        this.histogram = histogram;
+        this.categoryPercentages = categoryPercentages;
+    }
+
+    /**
+     * Builds a sampled result from a tally of showdowns.
+     *
+     * @param tally        Wins, ties and pot shares of every player
+     * @param converged    Whether sampling stopped because the target error was reached
+     * @param elapsedNanos Time spent sampling
+     */
+    public static EquityResult fromTally(EquityTally tally, boolean converged, long elapsedNanos) {
+        long trials = tally.getBoards();
+        long[] outcomes = tally.headsUpOutcomes();
+        double[] percentages = new double[3];
+        double[] standardErrors = new double[3];
+        for (int i = 0; i < 3; i++) {
+            double p = (double) outcomes[i] / trials;
+            percentages[i] = 100.0 * p;
+            standardErrors[i] = 100.0 * Math.sqrt(p * (1 - p) / trials);
+        }
+        int numPlayers = tally.getNumPlayers();
+        double[] playerStandardErrors = new double[numPlayers];
+        for (int i = 0; i < numPlayers; i++) {
+            playerStandardErrors[i] = tally.equityStandardError(i);
+        }
+        return new EquityResult(percentages, standardErrors, tally.equities(), playerStandardErrors,
+                trials, converged, elapsedNanos, null, categoryPercentages(tally));
+    }
+
+    /**
+     * Builds an exact result from a tally of every remaining board.
+     */
+    public static EquityResult exact(EquityTally tally, long elapsedNanos) {
+        long[] outcomes = tally.headsUpOutcomes();
+        double[] percentages = new double[3];
+        for (int i = 0; i < 3; i++) {
+            percentages[i] = 100.0 * outcomes[i] / tally.getBoards();
+        }
+        return new EquityResult(percentages, new double[3], tally.equities(), new double[tally.getNumPlayers()],
+                tally.getBoards(), true, elapsedNanos, null, categoryPercentages(tally));
+    }
+
+    /**
+     * Builds an exact heads-up result from win, loss and tie percentages, splitting ties evenly.
+     *
+     * @param boards Number of boards the percentages were counted over
+     */
+    public static EquityResult exactHeadsUp(double[] percentages, long boards, long elapsedNanos) {
+        double[] playerEquities = {percentages[0] + percentages[2] / 2, percentages[1] + percentages[2] / 2};
+        return new EquityResult(percentages.clone(), new double[3], playerEquities, new double[2],
+                boards, true, elapsedNanos, null, null);
+    }
+
+    private static double[][] categoryPercentages(EquityTally tally) {
+        double[][] categoryPercentages = new double[tally.getNumPlayers()][FastHandEvaluator.NUM_CATEGORIES];
+        for (int p = 0; p < categoryPercentages.length; p++) {
+            for (int c = 0; c < FastHandEvaluator.NUM_CATEGORIES; c++) {
+                categoryPercentages[p][c] = 100.0 * tally.getCategoryCount(p, c) / tally.getBoards();
+            }
+        }
+        return categoryPercentages;
+    }
+
+    /**
+     * Returns player one win, player two win and tie percentages, as returned by {@link Game#runSim()}.
+     */
+    public double[] getPercentages() {
+        return percentages.clone();
+    }
+
+    /**
+     * Returns the standard errors of {@link #getPercentages()}, in percentage points.
+     */
+    public double[] getStandardErrors() {
+        return standardErrors.clone();
+    }
+
+    /**
+     * Returns player one's equity (wins plus their share of split pots) as a percentage.
+     */
+    public double getEquity() {
+        return playerEquities[0];
+    }
+
+    public double getEquityStandardError() {
+        return playerStandardErrors[0];
+    }
+
+    /**
+     * Returns every player's equity as a percentage, in seating order.
+     */
+    public double[] getPlayerEquities() {
+        return playerEquities.clone();
+    }
+
+    /**
+     * Returns the standard errors of {@link #getPlayerEquities()}, in percentage points.
+     */
+    public double[] getPlayerStandardErrors() {
+        return playerStandardErrors.clone();
+    }
+
+    /**
+     * Returns the half width of the confidence interval around {@link #getEquity()} for a z value.
+     */
+    public double confidenceHalfWidth(double z) {
+        return z * playerStandardErrors[0];
+    }
+
+    /**
+     * Returns a copy of this result carrying the distribution of player one's equity.
+     */
+    public EquityResult withHistogram(EquityHistogram histogram) {
+        return new EquityResult(percentages, standardErrors, playerEquities, playerStandardErrors,
+                trials, converged, elapsedNanos, histogram, categoryPercentages);
+    }
+
+    /**
+     * Returns the distribution of player one's equity, such as across opponent combos, or null if none was collected.
+     */
+    public EquityHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * Returns the percentage of boards on which a player's best hand was each category, indexed
+     * from {@link FastHandEvaluator#HIGH_CARD} to {@link FastHandEvaluator#STRAIGHT_FLUSH}.
+     * Null for heads-up preflop results read from the equity table, which only stores outcomes.
+     */
+    public double[] getCategoryPercentages(int player) {
+        return categoryPercentages == null ? null : categoryPercentages[player].clone();
+    }
+
+    public long getTrials() {
+        return trials;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Player 1: %.2f%% (+/- %.2f), Player 2: %.2f%% (+/- %.2f), Tie: %.2f%% (+/- %.2f), %d trials",
+                percentages[0], standardErrors[0], percentages[1], standardErrors[1],
+                percentages[2], standardErrors[2], trials);
+    }
+}
@@ -0,0 +1,383 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Local HTTP/JSON equity service built on the JDK's {@code com.sun.net.httpserver}.
+ *
+ * <pre>
+ * GET /equity?hands=AsKs,QhQd[,7c7d...]&amp;board=JhTd2c       hand against hand, or multi-way
+ * GET /range?hand=AsKs&amp;range=QQ,JJ,AKo&amp;board=JhTd2c        hand against a weighted range
+ * GET /range-vs-range?hero=AA,KK&amp;villain=AKs,AQs[&amp;error=0.25&amp;boards=N]  range against range
+ * GET /stats                                                 queue and cache counters
+ * </pre>
+ *
+ * Every calculation endpoint also takes {@code dead=9s8s}, cards out of play that are never dealt
+ * and block the range combos holding them. Parameters may also be sent as a form-encoded POST body. Handlers never block: a request is
+ * parsed, handed to a fixed pool of calculation threads and answered from whichever thread
+ * finishes it. Concurrent requests for the same canonical spot (suit renamings included) share
+ * one calculation. At most {@code maxPending} calculations are queued or running; beyond that,
+ * requests are turned away at once with 503 and a Retry-After header.
+ */
+public class EquityServer {
+    private final HttpServer server;
+    private final ExecutorService calculations;
+    private final Semaphore admission;
+    private final int maxPending;
+    // Calculations in progress, by canonical spot, so identical requests can join them
+    private final Map<Object, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final EquityEngine engine = EquityEngine.shared();
+
+    /**
+     * @param address            Address to listen on, e.g. {@code new InetSocketAddress("127.0.0.1", 8080)}
+     * @param calculationThreads Number of calculations run at once
+     * @param maxPending         Most distinct calculations queued or running before requests are rejected
+     */
+    public EquityServer(InetSocketAddress address, int calculationThreads, int maxPending) throws IOException {
+        if (calculationThreads <= 0 || maxPending < calculationThreads) {
+            throw new IllegalArgumentException("Threads must be positive and the queue at least the thread count");
+        }
+        this.server = HttpServer.create(address, 0);
+        this.calculations = Executors.newFixedThreadPool(calculationThreads);
+        this.admission = new Semaphore(maxPending);
+        this.maxPending = maxPending;
+        // Handlers only parse and dispatch, so a couple of threads accept every connection
+        server.setExecutor(Executors.newFixedThreadPool(2));
+        server.createContext("/equity", exchange -> handle(exchange, this::handEquity));
+        server.createContext("/range", exchange -> handle(exchange, this::rangeEquity));
+        server.createContext("/range-vs-range", exchange -> handle(exchange, this::rangeVsRange));
+        server.createContext("/stats", exchange -> handle(exchange, this::stats));
+    }
+
+    /**
+     * Usage: {@code java EquityServer [--port 8080] [--threads N] [--queue N]}
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = threads * 64;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--queue":
+                    queue = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        EquityServer equityServer = new EquityServer(new InetSocketAddress("127.0.0.1", port), threads, queue);
+        equityServer.start();
+        System.out.println("Equity service listening on http://127.0.0.1:" + equityServer.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waiting up to {@code delaySeconds} for exchanges in progress.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        calculations.shutdownNow();
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * A parsed request: the key identical requests share and the calculation producing the JSON body.
+     */
+    private static class Job {
+        final Object key;
+        final Supplier<String> calculation;
+
+        Job(Object key, Supplier<String> calculation) {
+            this.key = key;
+            this.calculation = calculation;
+        }
+    }
+
+    /**
+     * Coalescing key of a range request, compared by content: the endpoint, the suit-canonical key
+     * of the cards, each range's combo weights and the calculation settings. Ranges are built from
+     * the 13x13 class table, so renaming suits leaves them unchanged and only the cards need the
+     * canonical form; spots differing by a suit renaming share one calculation.
+     */
+    private static final class RangeKey {
+        private final Object[] parts;
+
+        RangeKey(Object... parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RangeKey && Arrays.deepEquals(parts, ((RangeKey) other).parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.deepHashCode(parts);
+        }
+    }
+
+    private interface Endpoint {
+        Job parse(Map<String, String> params);
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) {
+        Job job;
+        try {
+            job = endpoint.parse(params(exchange));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, error(e.getMessage()));
+            return;
+        } catch (IOException e) {
+            respond(exchange, 400, error("Unreadable request"));
+            return;
+        }
+        if (job.key == null) {
+            respond(exchange, 200, job.calculation.get());
+            return;
+        }
+        CompletableFuture<String> result = inFlight.get(job.key);
+        if (result == null) {
+            if (!admission.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, error("Too many pending calculations"));
+                return;
+            }
+            CompletableFuture<String> created = new CompletableFuture<>();
+            result = inFlight.putIfAbsent(job.key, created);
+            if (result == null) {
+                result = created;
+                calculations.execute(() -> run(job, created));
+            } else {
+                // Another request started the same calculation in the meantime
+                admission.release();
+            }
+        }
+        result.whenComplete((body, failure) -> {
+            if (failure == null) {
+                respond(exchange, 200, body);
+            } else if (failure instanceof IllegalArgumentException) {
+                respond(exchange, 400, error(failure.getMessage()));
+            } else {
+                respond(exchange, 500, error(String.valueOf(failure)));
+            }
+        });
+    }
+
+    private void run(Job job, CompletableFuture<String> result) {
+        try {
+            result.complete(job.calculation.get());
+        } catch (Throwable e) {
+            // Errors too: every coalesced client waits on this future, so it must always complete
+            result.completeExceptionally(e);
+        } finally {
+            inFlight.remove(job.key, result);
+            admission.release();
+        }
+    }
+
+    private Job handEquity(Map<String, String> params) {
+        String[] handTexts = required(params, "hands").split(",");
+        int[][] hands = new int[handTexts.length][];
+        for (int i = 0; i < hands.length; i++) {
+            hands[i] = Cards.parseAll(handTexts[i]);
+            if (hands[i].length != 2) {
+                throw new IllegalArgumentException("A hand is two cards: " + handTexts[i]);
+            }
+        }
+        if (hands.length < 2) {
+            throw new IllegalArgumentException("At least two hands are needed");
+        }
+        EquityRequest request = EquityRequest.of(hands, board(params), dead(params));
+        return new Job(request.canonicalKey(), () -> {
+            EquityResult result = engine.calculate(request);
+            return "{\"equities\":" + json(result.getPlayerEquities()) + ",\"exact\":" + engine.isExact(request)
+                    + categories(result, hands.length) + "}";
+        });
+    }
+
+    private Job rangeEquity(Map<String, String> params) {
+        int[] hand = Cards.parseAll(required(params, "hand"));
+        if (hand.length != 2) {
+            throw new IllegalArgumentException("A hand is two cards");
+        }
+        HandRange range = HandRange.parse(required(params, "range"));
+        int[] board = board(params);
+        int trials = params.containsKey("trials") ? Integer.parseInt(params.get("trials")) : 100_000;
+        if (trials <= 0 || trials > 10_000_000) {
+            throw new IllegalArgumentException("Trials must be between 1 and 10,000,000");
+        }
+        EquityRequest request = EquityRequest.of(new int[][]{hand}, board, dead(params)).withTrials(trials);
+        Object key = new RangeKey("range", request.canonicalKey(), range.comboWeights(), trials);
+        return new Job(key, () -> {
+            EquityResult result = engine.rangeEquity(request, range, null);
+            return "{\"equities\":" + json(result.getPlayerEquities()) + ",\"standardErrors\":"
+                    + json(result.getPlayerStandardErrors()) + ",\"trials\":" + result.getTrials()
+                    + ",\"percentiles\":" + percentiles(result.getHistogram()) + "}";
+        });
+    }
+
+    private Job rangeVsRange(Map<String, String> params) {
+        HandRange hero = HandRange.parse(required(params, "hero"));
+        HandRange villain = HandRange.parse(required(params, "villain"));
+        int[] board = board(params);
+        int boards = params.containsKey("boards") ? Integer.parseInt(params.get("boards")) : EquityRequest.DEFAULT_TRIALS;
+        if (boards <= 0 || boards > 1_000_000) {
+            throw new IllegalArgumentException("Boards must be between 1 and 1,000,000");
+        }
+        double error = params.containsKey("error") ? Double.parseDouble(params.get("error"))
+                : EquityEngine.DEFAULT_RANGE_STANDARD_ERROR;
+        if (!(error >= 0)) {
+            throw new IllegalArgumentException("Error must be zero or positive");
+        }
+        EquityRequest request = EquityRequest.of(new int[0][], board, dead(params)).withTrials(boards)
+                .withTargetStandardError(error);
+        Object key = new RangeKey("range-vs-range", request.canonicalKey(), hero.comboWeights(),
+                villain.comboWeights(), boards, error);
+        return new Job(key, () -> {
+            RangeVsRange.Result result = engine.rangeVsRange(request, hero, villain);
+            return "{\"equities\":" + json(new double[]{result.getHeroEquity(), result.getVillainEquity()})
+                    + ",\"standardError\":" + String.format(Locale.ROOT, "%.4f", result.getStandardError())
+                    + ",\"exact\":" + result.isExact() + ",\"boards\":" + result.getBoards()
+                    + ",\"heroPercentiles\":" + percentiles(result.getHeroHistogram())
+                    + ",\"villainPercentiles\":" + percentiles(result.getVillainHistogram()) + "}";
+        });
+    }
+
+    private Job stats(Map<String, String> params) {
+        // Answered directly, never queued
+        EquityCache cache = engine.getCache();
+        return new Job(null, () -> String.format(Locale.ROOT,
+                "{\"pending\":%d,\"maxPending\":%d,\"cacheHits\":%d,\"cacheMisses\":%d,\"cacheSize\":%d}",
+                maxPending - admission.availablePermits(), maxPending, cache.getHits(), cache.getMisses(), cache.size()));
+    }
+
+    private static int[] board(Map<String, String> params) {
+        int[] board = Cards.parseAll(params.getOrDefault("board", ""));
+        if (board.length > 5) {
+            throw new IllegalArgumentException("A board has at most five cards");
+        }
+        return board;
+    }
+
+    private static long dead(Map<String, String> params) {
+        int[] dead = Cards.parseAll(params.getOrDefault("dead", ""));
+        return Cards.mask(dead, dead.length);
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Reads the query string and, for a POST, the form-encoded body.
+     */
+    private static Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        addParams(exchange.getRequestURI().getRawQuery(), params);
+        if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            try (InputStream body = exchange.getRequestBody()) {
+                addParams(new String(body.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+
+    private static void addParams(String encoded, Map<String, String> params) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(status, bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            // The client went away; nothing left to tell it
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Formats each player's hand category percentages as a {@code "categories"} field, or nothing
+     * when the result has none.
+     */
+    private static String categories(EquityResult result, int numPlayers) {
+        if (result.getCategoryPercentages(0) == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder(",\"categories\":[");
+        for (int p = 0; p < numPlayers; p++) {
+            text.append(p == 0 ? "" : ",").append(json(result.getCategoryPercentages(p)));
+        }
+        return text.append(']').toString();
+    }
+
+    private static String json(double[] values) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            text.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT, "%.4f", values[i]));
+        }
+        return text.append(']').toString();
+    }
+
+    /**
+     * Returns the 10th, 25th, 50th, 75th and 90th percentile equities as a JSON object keyed by percentile.
+     */
+    private static String percentiles(EquityHistogram histogram) {
+        StringBuilder text = new StringBuilder("{");
+        int[] points = {10, 25, 50, 75, 90};
+        for (int i = 0; i < points.length; i++) {
+            text.append(i == 0 ? "" : ",").append('"').append(points[i]).append("\":")
+                    .append(String.format(Locale.ROOT, "%.2f", histogram.percentile(points[i])));
+        }
+        return text.append('}').toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + String.valueOf(message).replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+}
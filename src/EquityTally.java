@@ -0,0 +1,141 @@
+/**
+ * Running win, tie and pot share counts for every player over a set of boards.
+ *
+ * Pot shares are counted in whole units of {@link #POT} so that splits between any
+ * number of players up to ten stay exact and tallies can be merged in any order.
+ * The tally also counts how often each player's best hand falls in each
+ * {@link FastHandEvaluator} category, which only needs the category bits of the scores.
+ */
+public class EquityTally {
+    // Divisible by every split count from 1 to 10
+    public static final long POT = 2520;
+
+    private final int numPlayers;
+    private final long[] wins;
+    private final long[] ties;
+    private final long[] shares;
+    private final long[] shareSquares;
+    // Indexed by player * NUM_CATEGORIES + category
+    private final long[] categoryCounts;
+    private long boards;
+
+    public EquityTally(int numPlayers) {
+        this.numPlayers = numPlayers;
+        this.wins = new long[numPlayers];
+        this.ties = new long[numPlayers];
+        this.shares = new long[numPlayers];
+        this.shareSquares = new long[numPlayers];
+        this.categoryCounts = new long[numPlayers * FastHandEvaluator.NUM_CATEGORIES];
+    }
+
+    /**
+     * Records one showdown, splitting the pot between every player holding the best score.
+     *
+     * @param scores Each player's score on the board
+     * @param best   The highest of those scores
+     */
+    public void record(int[] scores, int best) {
+        int winners = 0;
+        int winner = 0;
+        for (int i = 0; i < numPlayers; i++) {
+            int score = scores[i];
+            categoryCounts[i * FastHandEvaluator.NUM_CATEGORIES + FastHandEvaluator.category(score)]++;
+            if (score == best) {
+                winners++;
+                winner = i;
+            }
+        }
+        boards++;
+        if (winners == 1) {
+            wins[winner]++;
+            shares[winner] += POT;
+            shareSquares[winner] += POT * POT;
+            return;
+        }
+        long share = POT / winners;
+        for (int i = 0; i < numPlayers; i++) {
+            if (scores[i] == best) {
+                ties[i]++;
+                shares[i] += share;
+                shareSquares[i] += share * share;
+            }
+        }
+    }
+
+    /**
+     * Adds another tally for the same players into this one.
+     */
+    public void add(EquityTally other) {
+        for (int i = 0; i < numPlayers; i++) {
+            wins[i] += other.wins[i];
+            ties[i] += other.ties[i];
+            shares[i] += other.shares[i];
+            shareSquares[i] += other.shareSquares[i];
+        }
+        for (int i = 0; i < categoryCounts.length; i++) {
+            categoryCounts[i] += other.categoryCounts[i];
+        }
+        boards += other.boards;
+    }
+
+    /**
+     * Returns player one's outright wins, player two's outright wins and player one's split pots.
+     * For two players these are the win, loss and tie counts.
+     */
+    public long[] headsUpOutcomes() {
+        return new long[]{wins[0], wins[1], ties[0]};
+    }
+
+    /**
+     * Returns a player's equity, their average share of the pot, as a percentage.
+     */
+    public double equity(int player) {
+        return 100.0 * shares[player] / POT / boards;
+    }
+
+    /**
+     * Returns every player's equity as a percentage; the values add up to 100.
+     */
+    public double[] equities() {
+        double[] equities = new double[numPlayers];
+        for (int i = 0; i < numPlayers; i++) {
+            equities[i] = equity(i);
+        }
+        return equities;
+    }
+
+    /**
+     * Standard error of a player's sampled equity, in percentage points.
+     */
+    public double equityStandardError(int player) {
+        double mean = (double) shares[player] / POT / boards;
+        double meanOfSquares = (double) shareSquares[player] / POT / POT / boards;
+        double variance = Math.max(0.0, meanOfSquares - mean * mean);
+        return 100.0 * Math.sqrt(variance / boards);
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    public long getWins(int player) {
+        return wins[player];
+    }
+
+    public long getTies(int player) {
+        return ties[player];
+    }
+
+    /**
+     * Returns how many boards gave a player a best hand of the given category.
+     *
+     * @param category {@link FastHandEvaluator#HIGH_CARD} to {@link FastHandEvaluator#STRAIGHT_FLUSH}
+     */
+    public long getCategoryCount(int player, int category) {
+        return categoryCounts[player * FastHandEvaluator.NUM_CATEGORIES + category];
+    }
+
+    public long getBoards() {
+        return boards;
+    }
+}
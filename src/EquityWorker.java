@@ -0,0 +1,66 @@
+import javax.swing.SwingWorker;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs an equity calculation off the Event Dispatch Thread.
+ *
+ * Intermediate estimates are published as the calculation reports them and handed to the
+ * display callback on the EDT, so labels update live. Cancelling the worker stops the
+ * calculation at its next progress report and suppresses any further updates.
+ */
+public class EquityWorker extends SwingWorker<EquityResult, EquityResult> {
+    private final Function<ProgressListener, EquityResult> calculation;
+    private final Consumer<EquityResult> display;
+    private final Consumer<Throwable> onError;
+
+    /**
+     * @param calculation Runs the calculation, reporting progress to the listener it is given
+     * @param display     Shows an intermediate or final result, called on the EDT
+     * @param onError     Reports a failed calculation, called on the EDT
+     */
+    public EquityWorker(Function<ProgressListener, EquityResult> calculation, Consumer<EquityResult> display,
+                        Consumer<Throwable> onError) {
+        this.calculation = calculation;
+        this.display = display;
+        this.onError = onError;
+    }
+
+    @Override
+    protected EquityResult doInBackground() {
+        return calculation.apply(partial -> {
+            if (isCancelled()) {
+                return false;
+            }
+            publish(partial);
+            return true;
+        });
+    }
+
+    @Override
+    protected void process(List<EquityResult> chunks) {
+        // Only the latest estimate is worth drawing
+        if (!isCancelled()) {
+            display.accept(chunks.get(chunks.size() - 1));
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            display.accept(get());
+        } catch (CancellationException e) {
+            // Cancelled between the check above and get()
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            onError.accept(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,463 @@
+import java.util.List;
+
+/**
+ * Table-driven hand evaluator working on int card codes.
+ * Cards are {@link Cards} codes: suit * 13 + (rank - 2), the card's index in {@link Game}'s deck.
+ * {@link #NO_CARD} can stand in for a missing card and adds nothing to the hand.
+ *
+ * All lookup tables are built once when the class is loaded, and evaluating a hand
+ * does not allocate. Scores are packed into an int:
+ * bits 20-23 hold the category and bits 0-19 hold up to five ranks (2-14),
+ * most significant first. Higher score means stronger hand. {@link HandRank}
+ * maps the scores of complete hands to dense ranks from 1 to 7462.
+ */
+public class FastHandEvaluator {
+    public static final int HIGH_CARD = 0;
+    public static final int ONE_PAIR = 1;
+    public static final int TWO_PAIR = 2;
+    public static final int THREE_OF_A_KIND = 3;
+    public static final int STRAIGHT = 4;
+    public static final int FLUSH = 5;
+    public static final int FULL_HOUSE = 6;
+    public static final int FOUR_OF_A_KIND = 7;
+    public static final int STRAIGHT_FLUSH = 8;
+    public static final int NUM_CATEGORIES = 9;
+
+    // Placeholder code for a missing card
+    public static final int NO_CARD = 52;
+
+    private static final String[] CATEGORY_NAMES = {
+            "High Card", "One Pair", "Two Pair", "Three of a Kind", "Straight",
+            "Flush", "Full House", "Four of a Kind", "Straight Flush"
+    };
+
+    private static final int CATEGORY_SHIFT = 20;
+
+    // Per-card contributions to the running rank key, suit masks and suit counts
+    private static final long[] CARD_RANK_KEY = new long[53];
+    private static final long[] CARD_SUIT_BIT = new long[53];
+    private static final int[] CARD_SUIT_COUNT = new int[53];
+
+    // Highest rank (2-14) of the best straight in a 13-bit rank mask, or 0 if none
+    private static final int[] STRAIGHT_HIGH = new int[1 << 13];
+    // Score of the best five cards of one suit, indexed by that suit's 13-bit rank mask
+    private static final int[] FLUSH_SCORES = new int[1 << 13];
+
+    // Open addressing table from packed rank counts (3 bits per rank) to the hand score
+    private static final int RANK_TABLE_BITS = 17;
+    private static final int RANK_TABLE_MASK = (1 << RANK_TABLE_BITS) - 1;
+    private static final long[] RANK_KEYS = new long[1 << RANK_TABLE_BITS];
+    private static final int[] RANK_SCORES = new int[1 << RANK_TABLE_BITS];
+
+    static {
+        for (int code = 0; code < 52; code++) {
+            int suit = code / 13;
+            int rankIndex = code % 13;
+            CARD_RANK_KEY[code] = 1L << (3 * rankIndex);
+            CARD_SUIT_BIT[code] = 1L << (16 * suit + rankIndex);
+            CARD_SUIT_COUNT[code] = 1 << (4 * suit);
+        }
+        buildStraightTable();
+        buildFlushTable();
+        // Keys are never zero once a card is added, so zero marks an empty slot
+        buildRankTable(new int[13], 0, 0);
+    }
+
+    private FastHandEvaluator() {
+    }
+
+    /**
+     * Evaluates a seven card hand given as card codes.
+     *
+     * @return The hand's score, higher is stronger
+     */
+    public static int evaluate(int c0, int c1, int c2, int c3, int c4, int c5, int c6) {
+        long rankKey = CARD_RANK_KEY[c0] + CARD_RANK_KEY[c1] + CARD_RANK_KEY[c2] + CARD_RANK_KEY[c3]
+                + CARD_RANK_KEY[c4] + CARD_RANK_KEY[c5] + CARD_RANK_KEY[c6];
+        long suitMasks = CARD_SUIT_BIT[c0] | CARD_SUIT_BIT[c1] | CARD_SUIT_BIT[c2] | CARD_SUIT_BIT[c3]
+                | CARD_SUIT_BIT[c4] | CARD_SUIT_BIT[c5] | CARD_SUIT_BIT[c6];
+        int suitCounts = CARD_SUIT_COUNT[c0] + CARD_SUIT_COUNT[c1] + CARD_SUIT_COUNT[c2] + CARD_SUIT_COUNT[c3]
+                + CARD_SUIT_COUNT[c4] + CARD_SUIT_COUNT[c5] + CARD_SUIT_COUNT[c6];
+        return score(rankKey, suitMasks, suitCounts);
+    }
+
+    /**
+     * Evaluates the first {@code count} card codes of {@code cards} (at most seven).
+     *
+     * @param cards Card codes
+     * @param count Number of cards to use
+     * @return The hand's score, higher is stronger
+     */
+    public static int evaluate(int[] cards, int count) {
+        long rankKey = 0;
+        long suitMasks = 0;
+        int suitCounts = 0;
+        for (int i = 0; i < count; i++) {
+            int code = cards[i];
+            rankKey += CARD_RANK_KEY[code];
+            suitMasks |= CARD_SUIT_BIT[code];
+            suitCounts += CARD_SUIT_COUNT[code];
+        }
+        return score(rankKey, suitMasks, suitCounts);
+    }
+
+    /**
+     * Scores every player's two hole cards against the same board in one pass.
+     * The board is summed once and each player then only adds their own two cards.
+     *
+     * @param holeCards  Two card codes per player, player by player
+     * @param numPlayers Number of players
+     * @param board      Board card codes
+     * @param boardCount Number of board cards to use (at most five)
+     * @param scores     Receives each player's score
+     * @return The best score at the table
+     */
+    public static int evaluateShowdown(int[] holeCards, int numPlayers, int[] board, int boardCount, int[] scores) {
+        long boardRankKey = 0;
+        long boardSuitMasks = 0;
+        int boardSuitCounts = 0;
+        for (int i = 0; i < boardCount; i++) {
+            int code = board[i];
+            boardRankKey += CARD_RANK_KEY[code];
+            boardSuitMasks |= CARD_SUIT_BIT[code];
+            boardSuitCounts += CARD_SUIT_COUNT[code];
+        }
+        int best = 0;
+        for (int player = 0; player < numPlayers; player++) {
+            int first = holeCards[2 * player];
+            int second = holeCards[2 * player + 1];
+            int score = score(boardRankKey + CARD_RANK_KEY[first] + CARD_RANK_KEY[second],
+                    boardSuitMasks | CARD_SUIT_BIT[first] | CARD_SUIT_BIT[second],
+                    boardSuitCounts + CARD_SUIT_COUNT[first] + CARD_SUIT_COUNT[second]);
+            scores[player] = score;
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    /**
+     * Evaluates the same cards as {@link HandEvaluator#evaluateHand(Card[], List)}, skipping nulls.
+     *
+     * @param playerHand The player's two hole cards
+     * @param communityCards The community cards (up to 5)
+     * @return The hand's score, higher is stronger
+     */
+    public static int evaluate(Card[] playerHand, List<Card> communityCards) {
+        long rankKey = 0;
+        long suitMasks = 0;
+        int suitCounts = 0;
+        for (Card card : playerHand) {
+            if (card != null) {
+                int code = Cards.fromCard(card);
+                rankKey += CARD_RANK_KEY[code];
+                suitMasks |= CARD_SUIT_BIT[code];
+                suitCounts += CARD_SUIT_COUNT[code];
+            }
+        }
+        for (int i = 0; i < communityCards.size(); i++) {
+            Card card = communityCards.get(i);
+            if (card != null) {
+                int code = Cards.fromCard(card);
+                rankKey += CARD_RANK_KEY[code];
+                suitMasks |= CARD_SUIT_BIT[code];
+                suitCounts += CARD_SUIT_COUNT[code];
+            }
+        }
+        return score(rankKey, suitMasks, suitCounts);
+    }
+
+    /**
+     * Builds each player's partial hand from their two hole cards and the board cards dealt so far.
+     *
+     * @param holeCards  Two card codes per player, player by player
+     * @param numPlayers Number of players
+     * @param board      Board card codes
+     * @param boardCount Number of board cards that are fixed
+     */
+    public static PartialHand[] partialHands(int[] holeCards, int numPlayers, int[] board, int boardCount) {
+        PartialHand fixedBoard = PartialHand.of(board, 0, boardCount);
+        PartialHand[] hands = new PartialHand[numPlayers];
+        for (int player = 0; player < numPlayers; player++) {
+            hands[player] = fixedBoard.with(holeCards[2 * player]).with(holeCards[2 * player + 1]);
+        }
+        return hands;
+    }
+
+    /**
+     * Scores every player's partial hand completed with the same newly dealt cards.
+     * The dealt cards are summed once and added to each player's precomputed state.
+     *
+     * @param hands  Each player's hole cards plus the fixed board
+     * @param cards  Array holding the newly dealt card codes
+     * @param from   Index of the first dealt card in {@code cards}
+     * @param count  Number of dealt cards
+     * @param scores Receives each player's score
+     * @return The best score at the table
+     */
+    public static int evaluateShowdown(PartialHand[] hands, int[] cards, int from, int count, int[] scores) {
+        long rankKey = 0;
+        long suitMasks = 0;
+        int suitCounts = 0;
+        for (int i = from; i < from + count; i++) {
+            int code = cards[i];
+            rankKey += CARD_RANK_KEY[code];
+            suitMasks |= CARD_SUIT_BIT[code];
+            suitCounts += CARD_SUIT_COUNT[code];
+        }
+        int best = 0;
+        for (int player = 0; player < hands.length; player++) {
+            PartialHand hand = hands[player];
+            int score = score(hand.rankKey + rankKey, hand.suitMasks | suitMasks, hand.suitCounts + suitCounts);
+            scores[player] = score;
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the hand category (HIGH_CARD to STRAIGHT_FLUSH) of a score.
+     */
+    public static int category(int score) {
+        return score >>> CATEGORY_SHIFT;
+    }
+
+    /**
+     * Converts a hand score to its category name, using the same names as {@link HandRank#describe(int)}
+     */
+    public static String describeHand(int score) {
+        return CATEGORY_NAMES[category(score)];
+    }
+
+    private static int score(long rankKey, long suitMasks, int suitCounts) {
+        // Adding 3 to each 4-bit suit count sets its top bit only when the count is at least 5
+        int flushBits = (suitCounts + 0x3333) & 0x8888;
+        if (flushBits != 0) {
+            int suit = Integer.numberOfTrailingZeros(flushBits) >>> 2;
+            return FLUSH_SCORES[(int) (suitMasks >>> (16 * suit)) & 0x1FFF];
+        }
+        int slot = hashSlot(rankKey);
+        while (RANK_KEYS[slot] != rankKey) {
+            slot = (slot + 1) & RANK_TABLE_MASK;
+        }
+        return RANK_SCORES[slot];
+    }
+
+    private static int hashSlot(long rankKey) {
+        return (int) ((rankKey * 0x9E3779B97F4A7C15L) >>> (64 - RANK_TABLE_BITS));
+    }
+
+    /**
+     * Packs a category, up to two leading ranks and the top kickers of a rank mask into a score.
+     */
+    private static int pack(int category, int first, int second, int kickerMask, int kickers) {
+        int score = category;
+        int used = 0;
+        if (first != 0) {
+            score = (score << 4) | first;
+            used++;
+        }
+        if (second != 0) {
+            score = (score << 4) | second;
+            used++;
+        }
+        for (int i = 0; i < kickers && kickerMask != 0; i++) {
+            int high = 31 - Integer.numberOfLeadingZeros(kickerMask);
+            score = (score << 4) | (high + 2);
+            kickerMask &= ~(1 << high);
+            used++;
+        }
+        return score << (4 * (5 - used));
+    }
+
+    private static void buildStraightTable() {
+        for (int mask = 0; mask < STRAIGHT_HIGH.length; mask++) {
+            // Walk down from ace-high; the wheel (A-2-3-4-5) uses the ace as its low card
+            for (int high = 12; high >= 3; high--) {
+                int window = high == 3 ? 0b1_0000_0000_1111 : 0b11111 << (high - 4);
+                if ((mask & window) == window) {
+                    STRAIGHT_HIGH[mask] = high + 2;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void buildFlushTable() {
+        for (int mask = 0; mask < FLUSH_SCORES.length; mask++) {
+            if (Integer.bitCount(mask) < 5) {
+                continue;
+            }
+            if (STRAIGHT_HIGH[mask] != 0) {
+                FLUSH_SCORES[mask] = pack(STRAIGHT_FLUSH, STRAIGHT_HIGH[mask], 0, 0, 0);
+            } else {
+                FLUSH_SCORES[mask] = pack(FLUSH, 0, 0, mask, 5);
+            }
+        }
+    }
+
+    /**
+     * Enumerates every multiset of up to seven ranks (at most four of each) and stores its score.
+     */
+    private static void buildRankTable(int[] counts, int rankIndex, int cards) {
+        if (rankIndex == 13) {
+            if (cards > 0) {
+                long key = 0;
+                for (int i = 0; i < 13; i++) {
+                    key += (long) counts[i] << (3 * i);
+                }
+                int slot = hashSlot(key);
+                while (RANK_KEYS[slot] != 0) {
+                    slot = (slot + 1) & RANK_TABLE_MASK;
+                }
+                RANK_KEYS[slot] = key;
+                RANK_SCORES[slot] = scoreRanks(counts);
+            }
+            return;
+        }
+        for (int count = 0; count <= 4 && cards + count <= 7; count++) {
+            counts[rankIndex] = count;
+            buildRankTable(counts, rankIndex + 1, cards + count);
+        }
+        counts[rankIndex] = 0;
+    }
+
+    /**
+     * Scores a set of ranks with no flush.
+     */
+    private static int scoreRanks(int[] counts) {
+        int quads = 0;
+        int trips = 0;
+        int secondTrips = 0;
+        int highPair = 0;
+        int lowPair = 0;
+        int rankMask = 0;
+        for (int i = 12; i >= 0; i--) {
+            int rank = i + 2;
+            if (counts[i] > 0) {
+                rankMask |= 1 << i;
+            }
+            if (counts[i] == 4) {
+                quads = rank;
+            } else if (counts[i] == 3) {
+                if (trips == 0) {
+                    trips = rank;
+                } else if (secondTrips == 0) {
+                    secondTrips = rank;
+                }
+            } else if (counts[i] == 2) {
+                if (highPair == 0) {
+                    highPair = rank;
+                } else if (lowPair == 0) {
+                    lowPair = rank;
+                }
+            }
+        }
+
+        if (quads != 0) {
+            return pack(FOUR_OF_A_KIND, quads, 0, rankMask & ~bit(quads), 1);
+        }
+        if (trips != 0 && (secondTrips != 0 || highPair != 0)) {
+            return pack(FULL_HOUSE, trips, Math.max(secondTrips, highPair), 0, 0);
+        }
+        if (STRAIGHT_HIGH[rankMask] != 0) {
+            return pack(STRAIGHT, STRAIGHT_HIGH[rankMask], 0, 0, 0);
+        }
+        if (trips != 0) {
+            return pack(THREE_OF_A_KIND, trips, 0, rankMask & ~bit(trips), 2);
+        }
+        if (lowPair != 0) {
+            return pack(TWO_PAIR, highPair, lowPair, rankMask & ~bit(highPair) & ~bit(lowPair), 1);
+        }
+        if (highPair != 0) {
+            return pack(ONE_PAIR, highPair, 0, rankMask & ~bit(highPair), 3);
+        }
+        return pack(HIGH_CARD, 0, 0, rankMask, 5);
+    }
+
+    private static int bit(int rank) {
+        return 1 << (rank - 2);
+    }
+
+    /**
+     * Evaluator state (packed rank counts, per-suit rank bits and suit counts) of a fixed set of
+     * cards, such as hole cards plus the flop. Completing the hand only adds the cards dealt
+     * afterwards, so a flop or turn runout touches one or two cards instead of seven.
+     * Instances are immutable and can be shared between threads.
+     */
+    public static final class PartialHand {
+        private static final PartialHand EMPTY = new PartialHand(0, 0, 0, 0);
+
+        private final long rankKey;
+        private final long suitMasks;
+        private final int suitCounts;
+        private final int size;
+
+        private PartialHand(long rankKey, long suitMasks, int suitCounts, int size) {
+            this.rankKey = rankKey;
+            this.suitMasks = suitMasks;
+            this.suitCounts = suitCounts;
+            this.size = size;
+        }
+
+        /**
+         * Returns the partial hand of {@code count} card codes starting at {@code from}.
+         */
+        public static PartialHand of(int[] cards, int from, int count) {
+            PartialHand hand = EMPTY;
+            for (int i = from; i < from + count; i++) {
+                hand = hand.with(cards[i]);
+            }
+            return hand;
+        }
+
+        /**
+         * Returns this partial hand plus one card. {@link #NO_CARD} leaves the state unchanged.
+         */
+        public PartialHand with(int card) {
+            if (card == NO_CARD) {
+                return this;
+            }
+            return new PartialHand(rankKey + CARD_RANK_KEY[card], suitMasks | CARD_SUIT_BIT[card],
+                    suitCounts + CARD_SUIT_COUNT[card], size + 1);
+        }
+
+        /**
+         * Returns the number of cards in this partial hand.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Scores the cards in this partial hand alone.
+         */
+        public int evaluate() {
+            return score(rankKey, suitMasks, suitCounts);
+        }
+
+        /**
+         * Scores this partial hand with one more card.
+         */
+        public int evaluate(int card) {
+            return score(rankKey + CARD_RANK_KEY[card], suitMasks | CARD_SUIT_BIT[card],
+                    suitCounts + CARD_SUIT_COUNT[card]);
+        }
+
+        /**
+         * Scores this partial hand with {@code count} more card codes starting at {@code from},
+         * seven cards in total at most.
+         */
+        public int evaluate(int[] cards, int from, int count) {
+            long rankKey = this.rankKey;
+            long suitMasks = this.suitMasks;
+            int suitCounts = this.suitCounts;
+            for (int i = from; i < from + count; i++) {
+                int code = cards[i];
+                rankKey += CARD_RANK_KEY[code];
+                suitMasks |= CARD_SUIT_BIT[code];
+                suitCounts += CARD_SUIT_COUNT[code];
+            }
+            return score(rankKey, suitMasks, suitCounts);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Exact equity of a fixed matchup on every flop, for example how AsKs against QhQd fares on each one.
+ *
+ * Flops that are suit renamings of each other, with the hands renamed along, have the same
+ * equities and are calculated once. For hands of different suits that still leaves several
+ * thousand classes; each is enumerated over every turn and river by the shared
+ * {@link EquityEngine} on a parallel stream. The report lists one line per class, with the number of
+ * flops it stands for, sorted from player one's best flops to worst.
+ */
+public class FlopReport {
+    private final EquityEngine engine;
+
+    public FlopReport(EquityEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Usage: {@code java FlopReport [--csv] [--dead CARDS] [--output FILE] HAND HAND [HAND...]}
+     */
+    public static void main(String[] args) throws IOException {
+        boolean csv = false;
+        String dead = "";
+        String output = null;
+        List<int[]> hands = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--csv":
+                    csv = true;
+                    break;
+                case "--dead":
+                    dead = args[++i];
+                    break;
+                case "--output":
+                    output = args[++i];
+                    break;
+                default:
+                    hands.add(Cards.parseAll(args[i]));
+            }
+        }
+        if (hands.size() < 2) {
+            System.out.println("Usage: java FlopReport [--csv] [--dead CARDS] [--output FILE] HAND HAND [HAND...]");
+            return;
+        }
+        int[] deadCards = Cards.parseAll(dead);
+        long startTime = System.nanoTime();
+        List<FlopClass> flops = new FlopReport(new EquityEngine(Xoshiro256::new, null, null))
+                .run(hands.toArray(new int[0][]), Cards.mask(deadCards, deadCards.length));
+        try (Writer out = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Path.of(output))) {
+            write(flops, hands.size(), csv, out);
+        }
+        System.err.printf("%d flop classes in %.1f s%n", flops.size(), (System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * Calculates the exact equity of every flop class for the given hands.
+     *
+     * @param hands     Two card codes per player
+     * @param deadCards Bit mask of cards that are out of play
+     * @return One entry per class, sorted by player one's equity, highest first
+     */
+    public List<FlopClass> run(int[][] hands, long deadCards) {
+        for (int[] hand : hands) {
+            if (hand.length != 2) {
+                throw new IllegalArgumentException("Every player needs two cards");
+            }
+        }
+        EquityRequest preflop = EquityRequest.of(hands, new int[0], deadCards);
+        int[] holeCards = new int[2 * hands.length];
+        for (int i = 0; i < hands.length; i++) {
+            holeCards[2 * i] = hands[i][0];
+            holeCards[2 * i + 1] = hands[i][1];
+        }
+
+        // Group the flops by canonical key, keeping the first flop of each class as its representative
+        Map<SuitIsomorphism.Key, FlopClass> classes = new LinkedHashMap<>();
+        int[] live = Cards.codes(preflop.getLiveMask());
+        int[] flop = new int[3];
+        for (int i = 0; i < live.length; i++) {
+            for (int j = i + 1; j < live.length; j++) {
+                for (int k = j + 1; k < live.length; k++) {
+                    flop[0] = live[i];
+                    flop[1] = live[j];
+                    flop[2] = live[k];
+                    long liveMask = preflop.getLiveMask() & ~Cards.mask(flop, 3);
+                    SuitIsomorphism.Key key = SuitIsomorphism.canonicalKey(holeCards, hands.length, flop, 3, liveMask);
+                    FlopClass flopClass = classes.get(key);
+                    if (flopClass == null) {
+                        classes.put(key, new FlopClass(flop.clone()));
+                    } else {
+                        flopClass.count++;
+                    }
+                }
+            }
+        }
+
+        List<FlopClass> flops = new ArrayList<>(classes.values());
+        flops.parallelStream().forEach(flopClass -> flopClass.equities =
+                engine.enumerate(EquityRequest.of(hands, flopClass.flop, deadCards)).getPlayerEquities());
+        flops.sort(Comparator.comparingDouble((FlopClass flopClass) -> -flopClass.equities[0]));
+        return flops;
+    }
+
+    /**
+     * Writes the report as an aligned text table or as CSV, followed by the flop-weighted
+     * equities, which match the preflop equities.
+     */
+    public static void write(List<FlopClass> flops, int numPlayers, boolean csv, Writer out) throws IOException {
+        long totalFlops = 0;
+        double[] weighted = new double[numPlayers];
+        for (FlopClass flopClass : flops) {
+            totalFlops += flopClass.count;
+            for (int p = 0; p < numPlayers; p++) {
+                weighted[p] += flopClass.count * flopClass.equities[p];
+            }
+        }
+        out.write(csv ? "flop,count,probability" : String.format(Locale.ROOT, "%-9s %6s %8s", "Flop", "Count", "Prob %"));
+        for (int p = 1; p <= numPlayers; p++) {
+            out.write(csv ? ",player" + p : String.format(Locale.ROOT, " %9s", "Player " + p));
+        }
+        out.write('\n');
+        for (FlopClass flopClass : flops) {
+            double probability = 100.0 * flopClass.count / totalFlops;
+            out.write(csv
+                    ? String.format(Locale.ROOT, "%s,%d,%.4f", flopClass.flopText(), flopClass.count, probability)
+                    : String.format(Locale.ROOT, "%-9s %6d %8.4f", flopClass.flopText(), flopClass.count, probability));
+            for (double equity : flopClass.equities) {
+                out.write(String.format(Locale.ROOT, csv ? ",%.4f" : " %9.4f", equity));
+            }
+            out.write('\n');
+        }
+        if (!csv) {
+            out.write(String.format(Locale.ROOT, "%-9s %6d %8.4f", "All", totalFlops, 100.0));
+            for (double equity : weighted) {
+                out.write(String.format(Locale.ROOT, " %9.4f", equity / totalFlops));
+            }
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * One class of suit-isomorphic flops: a representative flop, how many flops share its equities, and those equities.
+     */
+    public static class FlopClass {
+        final int[] flop;
+        int count = 1;
+        double[] equities;
+
+        FlopClass(int[] flop) {
+            this.flop = flop;
+        }
+
+        public int[] getFlop() {
+            return flop.clone();
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns every player's exact equity on this flop as a percentage, in seating order.
+         */
+        public double[] getEquities() {
+            return equities.clone();
+        }
+
+        String flopText() {
+            // Highest rank first, as flops are usually written
+            StringBuilder text = new StringBuilder();
+            Arrays.stream(flop).boxed()
+                    .sorted(Comparator.comparingInt((Integer card) -> -(card % 13)).thenComparingInt(card -> card))
+                    .forEach(card -> text.append(Cards.toString(card)));
+            return text.toString();
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.function.LongFunction;
 
 public class Game {
     private Card[] deck = new Card[52];
@@ -21,7 +22,15 @@ public class Game {
             {"A3o", "K3o", "Q3o", "J3o", "T3o", "93o", "83o", "73o", "63o", "53o", "43o", "33", "32s" },
             {"A2o", "K2o", "Q2o", "J2o", "T2o", "92o", "82o", "72o", "62o", "52o", "42o", "32o", "22" }
     };
+    private static final int MAX_PLAYERS = 10;
     HandEvaluator eval;
+    private LongFunction<CardRandom> randomSource = Xoshiro256::new;
+    // Spots already calculated by any game, shared across suit-isomorphic spots
+    private EquityCache equityCache = EquityEngine.shared().getCache();
+    // Answers preflop heads-up questions without dealing any boards, when set
+    private PreflopEquityTable preflopTable;
+    // Does the calculations; rebuilt whenever one of the three settings above changes
+    private EquityEngine engine = EquityEngine.shared();
 
     public Game() {
         int index = 0;
@@ -38,57 +47,226 @@ public class Game {
     }
 
     public double[] runSim() {
-        double[] toReturn = new double[3];
-        eval = new HandEvaluator();
-        int numCommunity = communityCards.size();
-
-        int playerOneWins = 0;
-        int playerTwoWins = 0;
-        int ties = 0;
-
-        System.out.println("Press enter to calculate EV");
-        for (int i = 0; i < 100; i++) {
-            for (int j = 0; j < 1000; j++) {
-                int cardsToDeal = 5 - numCommunity;
-                for (int k = 0; k < cardsToDeal; k++) {
-                    communityCards.add(randDealCard());
-                }
-                long playerOneStrength = eval.evaluateHand(players.get(0).getHand(), communityCards);
-                long playerTwoStrength = eval.evaluateHand(players.get(1).getHand(), communityCards);
-                if (playerOneStrength > playerTwoStrength) {
-                    playerOneWins++;
-                } else if (playerOneStrength < playerTwoStrength) {
-                    playerTwoWins++;
-                } else {
-                    ties++;
-                }
+        return runSim(EquityRequest.DEFAULT_TRIALS, 0, Long.MAX_VALUE).getPercentages();
+    }
 
-                //displayState(playerOneStrength, playerTwoStrength);
-                for (int k = 0; k < cardsToDeal; k++) {
-                    communityCards.remove(communityCards.size() - 1).setDealt(false);
-                    cardsLeft++;
-                }
+    /**
+     * Deals random boards in batches until player one's equity has converged, the trial budget
+     * is used up or the time limit passes, whichever comes first.
+     * For a 95% confidence interval of +/- h percentage points, pass h / {@link EquityResult#Z_95}.
+     *
+     * @param maxTrials           Most boards to deal
+     * @param targetStandardError Standard error of player one's equity to stop at, in percentage points (0 to use the full budget)
+     * @param timeLimitMillis     Wall-clock time after which no new batch is started
+     * @return The percentages together with their standard errors
+     */
+    public EquityResult runSim(int maxTrials, double targetStandardError, long timeLimitMillis) {
+        return runSim(maxTrials, targetStandardError, timeLimitMillis, null);
+    }
+
+    /**
+     * Same as {@link #runSim(int, double, long)}, also passing an intermediate result to a
+     * listener every 10,000 trials. The listener can stop the run early.
+     *
+     * @param listener Receives intermediate results, or null
+     */
+    public EquityResult runSim(int maxTrials, double targetStandardError, long timeLimitMillis,
+                               ProgressListener listener) {
+        EquityRequest request = toRequest().withTrials(maxTrials)
+                .withTargetStandardError(targetStandardError)
+                .withTimeLimit(timeLimitMillis);
+        return engine.simulate(request, listener);
+    }
+
+    /**
+     * Calculates equity exactly when few enough runouts remain, otherwise falls back to Monte Carlo.
+     *
+     * @return Player one win, player two win and tie percentages
+     */
+    public double[] calculateEquity() {
+        return engine.calculate(toRequest()).getPercentages();
+    }
+
+    /**
+     * Calculates equity like {@link #calculateEquity()}, streaming intermediate Monte Carlo
+     * estimates to a listener, which can also stop the calculation.
+     *
+     * @param listener Receives intermediate results, or null
+     * @return Exact results (with zero standard errors) or the Monte Carlo estimate
+     */
+    public EquityResult calculateEquity(ProgressListener listener) {
+        return engine.calculate(toRequest(), listener);
+    }
+
+    /**
+     * Builds the evaluator tables and runs a few short simulations so the JIT has compiled the
+     * dealing and evaluation loops before the first real calculation.
+     */
+    public static void warmUp() {
+        EquityEngine.warmUp();
+    }
+
+    /**
+     * Calculates every player's share of the pot, exactly when few enough runouts remain and
+     * by Monte Carlo otherwise.
+     *
+     * @return Each player's equity as a percentage, in seating order
+     */
+    public double[] calculateMultiwayEquity() {
+        return engine.calculate(toRequest()).getPlayerEquities();
+    }
+
+    /**
+     * Enumerates every remaining board for the dealt community cards and returns exact equity.
+     * Both players must hold two cards.
+     *
+     * @return Player one win, player two win and tie percentages
+     */
+    public double[] runExact() {
+        return engine.enumerate(toRequest()).getPercentages();
+    }
+
+    /**
+     * Runs a Monte Carlo simulation split across the common fork-join pool.
+     * Results are deterministic for a given seed and number of splits.
+     *
+     * @param trials Number of random boards to deal
+     * @param seed   Seed for the per-split random number generators
+     * @param splits Number of independent chunks the trials are divided into
+     * @return Player one win, player two win and tie percentages
+     */
+    public double[] runParallelSim(int trials, long seed, int splits) {
+        return engine.simulateParallel(toRequest().withTrials(trials), seed, splits).getPercentages();
+    }
+
+    /**
+     * Returns whether {@link #calculateEquity()} enumerates every remaining board rather than sampling.
+     */
+    public boolean isExactSpot() {
+        return engine.isExact(toRequest());
+    }
+
+    /**
+     * Returns how many distinct boards can still be dealt for the current community cards.
+     */
+    public long remainingBoards() {
+        return toRequest().remainingBoards();
+    }
+
+    /**
+     * Returns the current spot as an immutable request for an {@link EquityEngine}. Cards taken out
+     * of the deck without going to a player or the board are passed as dead cards.
+     */
+    public EquityRequest toRequest() {
+        int[] board = boardCodes();
+        int[][] hands = new int[players.size()][];
+        long held = Cards.mask(board, board.length);
+        for (int i = 0; i < hands.length; i++) {
+            Card[] hand = players.get(i).getHand();
+            int count = hand[0] == null ? 0 : hand[1] == null ? 1 : 2;
+            hands[i] = new int[count];
+            for (int j = 0; j < count; j++) {
+                hands[i][j] = Cards.fromCard(hand[j]);
+                held |= Cards.mask(hands[i][j]);
             }
-            int totalHands = playerOneWins + playerTwoWins + ties;
-            // First index is player one equity
-            toReturn[0] = 100.0 * playerOneWins / totalHands;
-            // Second index is player two equity
-            toReturn[1] = 100.0 * playerTwoWins / totalHands;
-            // Third index is player 3 equity
-            toReturn[2] = 100.0 * ties / totalHands;
-//            System.out.println(toReturn[0]);
-//            System.out.println(toReturn[1]);
-//            System.out.println(toReturn[2]);
         }
-        return toReturn;
+        return EquityRequest.of(hands, board, dealtMask() & ~held);
+    }
+
+    /**
+     * Takes a card out of play, such as a folded or exposed card. It is never dealt to the board
+     * and combos holding it are removed from ranges.
+     */
+    public void addDeadCard(int rank, int suit) {
+        if (dealCard(rank, suit) == null) {
+            throw new IllegalArgumentException("Card already dealt: " + new Card(rank, suit));
+        }
+    }
+
+    /**
+     * Returns the bit mask of cards out of the deck that are neither held by a player nor on the board.
+     */
+    public long getDeadCards() {
+        return toRequest().getDeadCards();
+    }
+
+    /**
+     * Builds a game from card codes: one two-card hand per player (at least two players) and the board.
+     * With no hands the two default players are left empty, for range calculations.
+     */
+    public static Game withHands(int[][] hands, int[] board) {
+        Game game = new Game();
+        while (game.players.size() < hands.length) {
+            game.addPlayer("Player " + (game.players.size() + 1));
+        }
+        for (int i = 0; i < hands.length; i++) {
+            for (int card : hands[i]) {
+                game.dealCardToPlayer(i, Cards.rank(card), Cards.suit(card));
+            }
+        }
+        for (int card : board) {
+            Card dealt = game.dealCard(Cards.rank(card), Cards.suit(card));
+            if (dealt == null) {
+                throw new IllegalArgumentException("Card already dealt: " + Cards.toString(card));
+            }
+            game.communityCards.add(dealt);
+        }
+        return game;
+    }
+
+    /**
+     * Adds another player to the table, up to ten.
+     *
+     * @param name The player's name
+     * @return The new player, whose hand can then be filled with {@link #dealCardToPlayer(int, int, int)}
+     */
+    public Player addPlayer(String name) {
+        if (players.size() >= MAX_PLAYERS) {
+            throw new IllegalStateException("A table seats at most " + MAX_PLAYERS + " players");
+        }
+        Player player = new Player(name);
+        players.add(player);
+        return player;
+    }
+
+    /**
+     * Takes a card out of the deck and gives it to a player.
+     *
+     * @param player Seat index of the player
+     */
+    public void dealCardToPlayer(int player, int rank, int suit) {
+        Card card = dealCard(rank, suit);
+        if (card == null) {
+            throw new IllegalArgumentException("Card already dealt: " + new Card(rank, suit));
+        }
+        players.get(player).addCardToHand(card);
+    }
+
+    private long dealtMask() {
+        long dealt = 0;
+        for (int i = 0; i < deck.length; i++) {
+            if (deck[i].isDealt) {
+                dealt |= Cards.mask(i);
+            }
+        }
+        return dealt;
+    }
+
+    private int[] boardCodes() {
+        int[] board = new int[communityCards.size()];
+        for (int i = 0; i < board.length; i++) {
+            board[i] = Cards.fromCard(communityCards.get(i));
+        }
+        return board;
     }
 
     public void run() {
-        HandEvaluator eval = new HandEvaluator();
         Scanner scanner = new Scanner(System.in);
 
         int numPlayers = 2;
 
+        // The players entered here, who sit after any already at the table
+        List<Player> seated = new ArrayList<>();
         for (int i = 0; i < numPlayers; i++) {
             Player player = new Player(Character.toString(i));
             for (int j = 0; j < 2; j++) {
@@ -96,6 +274,7 @@ public class Game {
                 player.addCardToHand(card);
             }
             players.add(player);
+            seated.add(player);
         }
 
         System.out.print("Enter number of community cards (0-5): ");
@@ -106,11 +285,14 @@ public class Game {
             communityCards.add(card);
         }
 
-        long playerOneStrength = eval.evaluateHand(players.get(0).getHand(), communityCards);
-        long playerTwoStrength = eval.evaluateHand(players.get(1).getHand(), communityCards);
-
-        System.out.println("Player one: " + playerOneStrength);
-        System.out.println("Player two: " + playerTwoStrength);
+        // Hand ranks need five cards; before the flop there is nothing to compare yet
+        if (communityCards.size() >= 3) {
+            int playerOneStrength = HandEvaluator.evaluateHand(seated.get(0).getHand(), communityCards);
+            int playerTwoStrength = HandEvaluator.evaluateHand(seated.get(1).getHand(), communityCards);
+            displayState(playerOneStrength, playerTwoStrength);
+        } else {
+            displayState();
+        }
 
 //        Player playerOne = new Player("Clifford");
 //        Player playerTwo = new Player("Cody");
@@ -135,8 +317,8 @@ public class Game {
 //                for (int k = 0; k < cardsToDeal; k++) {
 //                    communityCards.add(randDealCard());
 //                }
-//                long playerOneStrength = eval.evaluateHand(players.get(0).getHand(), communityCards);
-//                long playerTwoStrength = eval.evaluateHand(players.get(1).getHand(), communityCards);
+//                int playerOneStrength = HandEvaluator.evaluateHand(players.get(0).getHand(), communityCards);
+//                int playerTwoStrength = HandEvaluator.evaluateHand(players.get(1).getHand(), communityCards);
 //                if(playerOneStrength > playerTwoStrength){
 //                    playerOneWins++;
 //                }
@@ -162,124 +344,88 @@ public class Game {
     }
 
 
+    /**
+     * Calculates a hand's equity against every selected class of a 13x13 range table.
+     *
+     * @return Hand win, range win and tie percentages
+     */
     public double[] rangeSim(boolean[][] rangeTable, Card[] myHand) {
-        double playerOneEquity = 0.0;
-        double playerTwoEquity = 0.0;
-        double tieEquity = 0.0;
-        int hands = 0;
-
-        // Iterate through the range table and generate possible opponent hands
-        for (int i = 0; i < rangeTable.length; i++) {
-            for (int j = 0; j < rangeTable[i].length; j++) {
-                if (rangeTable[i][j]) {
-                    String rangeCode = pokerRangeTable[i][j];
-                    Card[] opponentHand = parseHandFromRangeCode(rangeCode);
-
-                    if (opponentHand != null && isHandValid(opponentHand, myHand, communityCards)) {
-                        // Add opponent hand to players for simulation
-                        players.get(1).hand = opponentHand;
-
-                        // Run the simulation using runSim
-                        players.get(0).hand = myHand;
-                        double[] results = runSim();
-
-                        // Only consider equity for our hand (player 0)
-                        playerOneEquity += results[0];
-                        playerTwoEquity += results[1];
-                        tieEquity += results[2];
-                        hands++;
-                    }
-                }
-            }
-        }
-        double[] toReturn = new double[3];
-        toReturn[0] = playerOneEquity/hands;
-        toReturn[1] = playerTwoEquity/hands;
-        toReturn[2] = tieEquity/hands;
+        return rangeSim(HandRange.fromTable(rangeTable), myHand, EquityRequest.DEFAULT_TRIALS).getPercentages();
+    }
 
-        // Average equity calculation
-        return toReturn;
+    /**
+     * Calculates a hand's equity against a 13x13 table of class weights between 0 and 1.
+     *
+     * @return Hand win, range win and tie percentages
+     */
+    public double[] rangeSim(double[][] classWeights, Card[] myHand) {
+        return rangeSim(HandRange.fromWeights(classWeights), myHand, EquityRequest.DEFAULT_TRIALS).getPercentages();
     }
 
     /**
-     * Helper method to parse a hand (2 cards) from a range table code.
+     * Simulates a hand against a weighted range in a single run. Combos that share a card with
+     * the hand, the board or a dead card are removed first; each trial then draws an opponent combo in
+     * proportion to its weight and deals the rest of the board around both hands.
      *
-     * @param rangeCode The shorthand for the poker hand in the range table.
-     * @return An array of 2 cards or null if parsing fails.
+     * @param range  The opponent's range
+     * @param myHand The hand whose equity is calculated
+     * @param trials Number of combo and board pairs to deal
+     * @return The hand's results as player one, the range's as player two
      */
-    private Card[] parseHandFromRangeCode(String rangeCode) {
-        // Example: "AKs" means Ace of Spades & King of Spades (suited)
-        // Example: "98o" means 9 & 8 off-suit (different suits)
-        try {
-            int rank1 = getRankFromChar(rangeCode.charAt(0));
-            int rank2 = getRankFromChar(rangeCode.charAt(1));
-            boolean suited = rangeCode.length() == 3 && rangeCode.charAt(2) == 's';
-
-            // Generate the two cards based on suited/offsuit
-            for (int suit1 = 0; suit1 <= 3; suit1++) {
-                for (int suit2 = 0; suit2 <= 3; suit2++) {
-                    if ((suited && suit1 != suit2) || (!suited && suit1 == suit2)) {
-                        continue;
-                    }
-                    Card card1 = dealCard(rank1, suit1);
-                    Card card2 = dealCard(rank2, suit2);
-
-                    if (card1 != null && card2 != null) {
-                        return new Card[]{card1, card2};
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // Parsing failed, return null
-        }
-        return null;
+    public EquityResult rangeSim(HandRange range, Card[] myHand, int trials) {
+        return rangeSim(range, myHand, trials, null);
     }
 
     /**
-     * Helper method to check if a given hand is valid (no overlap with other cards in play).
+     * Same as {@link #rangeSim(HandRange, Card[], int)}, also passing an intermediate result to
+     * a listener every 10,000 trials. The listener can stop the run early.
      *
-     * @param hand           The hand to validate.
-     * @param myHand         Your current hand.
-     * @param communityCards The community cards on the table.
-     * @return True if the hand is valid, false otherwise.
+     * @param listener Receives intermediate results, or null
      */
-    private boolean isHandValid(Card[] hand, Card[] myHand, List<Card> communityCards) {
-        Set<Card> usedCards = new HashSet<>();
-        usedCards.addAll(Arrays.asList(myHand));
-        usedCards.addAll(communityCards);
-
-        for (Card card : hand) {
-            if (usedCards.contains(card)) {
-                return false;
-            }
-        }
-        return true;
+    public EquityResult rangeSim(HandRange range, Card[] myHand, int trials, ProgressListener listener) {
+        return engine.rangeEquity(toRangeRequest(myHand, trials), range, listener);
     }
 
     /**
-     * Helper method to convert a rank character into an integer.
+     * Returns the current spot as the immutable request {@link #rangeSim(HandRange, Card[], int)} runs
+     * against a range: the hand as player one, the board, and every other card out of the deck,
+     * including other players' hole cards, as dead cards.
+     */
+    public EquityRequest toRangeRequest(Card[] myHand, int trials) {
+        int[][] hand = {{Cards.fromCard(myHand[0]), Cards.fromCard(myHand[1])}};
+        int[] board = boardCodes();
+        long dead = dealtMask() & ~Cards.mask(hand[0], 2) & ~Cards.mask(board, board.length);
+        return EquityRequest.of(hand, board, dead).withTrials(trials);
+    }
+
+    /**
+     * Calculates the equity of one 13x13 range table selection against another on the current board.
      *
-     * @param c The character representing the rank ('2'-'9', 'T', 'J', 'Q', 'K', 'A').
-     * @return The integer rank.
+     * @return Aggregate equity of both ranges and the equity of every combo in each
      */
-    private int getRankFromChar(char c) {
-        if (c >= '2' && c <= '9') {
-            return c - '0';
-        }
-        switch (c) {
-            case 'T':
-                return 10;
-            case 'J':
-                return 11;
-            case 'Q':
-                return 12;
-            case 'K':
-                return 13;
-            case 'A':
-                return 14;
-            default:
-                throw new IllegalArgumentException("Invalid rank character: " + c);
-        }
+    public RangeVsRange.Result rangeVsRange(boolean[][] heroTable, boolean[][] villainTable) {
+        return rangeVsRange(HandRange.fromTable(heroTable), HandRange.fromTable(villainTable));
+    }
+
+    /**
+     * Calculates the equity of one weighted range against another on the current board, exactly
+     * when few enough boards remain and otherwise from sampled boards, to a standard error of
+     * {@link EquityEngine#DEFAULT_RANGE_STANDARD_ERROR} points. Any other card out of the
+     * deck, including dealt hole cards, blocks the combos holding it.
+     */
+    public RangeVsRange.Result rangeVsRange(HandRange hero, HandRange villain) {
+        int[] board = boardCodes();
+        long dead = dealtMask() & ~Cards.mask(board, board.length);
+        EquityRequest request = EquityRequest.of(new int[0][], board, dead)
+                .withTargetStandardError(EquityEngine.DEFAULT_RANGE_STANDARD_ERROR);
+        return engine.rangeVsRange(request, hero, villain);
+    }
+
+    /**
+     * Returns the shorthand (e.g. "AKs", "AKo", "AA") of a cell in the 13x13 range table.
+     */
+    public static String rangeCode(int row, int col) {
+        return pokerRangeTable[row][col];
     }
 
     private int getValidIntInput(Scanner scanner, int min, int max) {
@@ -301,7 +447,7 @@ public class Game {
 
     private Card dealCard(int rank, int suit){
         // Calculate index in the deck array
-        int index = (suit * 13) + (rank - 2);
+        int index = Cards.code(rank, suit);
         Card card = deck[index];
 
         if (!card.isDealt) {
@@ -325,7 +471,7 @@ public class Game {
                 scanner.nextLine(); // consume newline
 
                 // Calculate index in the deck array
-                int index = (suit * 13) + (rank - 2);
+                int index = Cards.code(rank, suit);
 
                 // Double-check index bounds (should be unnecessary with validation above)
                 if (index < 0 || index >= 52) {
@@ -360,7 +506,7 @@ public class Game {
         System.out.println();
     }
 
-    private void displayState(long playerOneStrength, long playerTwoStrength) {
+    private void displayState(int playerOneStrength, int playerTwoStrength) {
         System.out.println("--- Game State ---");
         for (Player player : players) {
             System.out.println(player);
@@ -376,33 +522,46 @@ public class Game {
         System.out.println(HandEvaluator.describeHand(playerTwoStrength));
     }
 
-    private Card randDealCard() {
-
-        int index;
-        Card card;
-
-        if (cardsLeft == 0) {
-            return null;
-        }
+    /**
+     * Replaces the random number generator used to deal boards.
+     *
+     * @param randomSource Creates a generator from a seed, e.g. {@code seed -> new SplittableRandom(seed)::nextInt}
+     */
+    public void setRandomSource(LongFunction<CardRandom> randomSource) {
+        this.randomSource = randomSource;
+        engine = new EquityEngine(randomSource, equityCache, preflopTable);
+    }
 
-        index = (int) (Math.random() * cardsLeft) + 1;
-        int i = 0;
+    /**
+     * Uses a precomputed table for preflop heads-up and range against range equity.
+     *
+     * @param preflopTable Table written by {@link PreflopEquityTable#generate}, or null to always calculate
+     */
+    public void setPreflopTable(PreflopEquityTable preflopTable) {
+        this.preflopTable = preflopTable;
+        engine = new EquityEngine(randomSource, equityCache, preflopTable);
+    }
 
-        do {
-            if (!deck[i].isDealt) {
-                index--;
-            }
-            i++;
-        } while (index > 0 && i < 52);
+    /**
+     * Replaces the cache of calculated spots, which by default is shared by every game.
+     *
+     * @param equityCache Cache to use, or null to always recalculate
+     */
+    public void setEquityCache(EquityCache equityCache) {
+        this.equityCache = equityCache;
+        engine = new EquityEngine(randomSource, equityCache, preflopTable);
+    }
 
-        if (i > 0 && i <= 52) {
-            card = deck[i-1];
-            card.isDealt = true;
-            cardsLeft--;
-            return card;
-        }
+    /**
+     * Returns the engine this game calculates with, which changes when the random source, preflop
+     * table or cache is replaced.
+     */
+    public EquityEngine getEngine() {
+        return engine;
+    }
 
-        return null;
+    public EquityCache getEquityCache() {
+        return equityCache;
     }
 
     public List<Player> getPlayers() {
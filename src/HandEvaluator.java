@@ -5,30 +5,71 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Reference hand evaluator working on {@link Card} lists. It shares no tables or code with
+ * {@link FastHandEvaluator}, so the two can be cross-checked; both report {@link HandRank}s.
+ */
 public class HandEvaluator {
+    // Highest rank (2-14) of the best straight in a 13-bit rank mask, 5 for the wheel, 0 if none
+    private static final int[] STRAIGHT_HIGH = new int[1 << 13];
+    // The five highest ranks of a 13-bit rank mask holding at least five ranks, 0 otherwise
+    private static final int[] TOP_FIVE_RANKS = new int[1 << 13];
+
+    static {
+        for (int mask = 0; mask < STRAIGHT_HIGH.length; mask++) {
+            for (int high = 14; high >= 6; high--) {
+                int straight = 0x1F << (high - 6);
+                if ((mask & straight) == straight) {
+                    STRAIGHT_HIGH[mask] = high;
+                    break;
+                }
+            }
+            // A-2-3-4-5, the ace playing low
+            if (STRAIGHT_HIGH[mask] == 0 && (mask & 0x100F) == 0x100F) {
+                STRAIGHT_HIGH[mask] = 5;
+            }
+            if (Integer.bitCount(mask) >= 5) {
+                int ranks = mask;
+                while (Integer.bitCount(ranks) > 5) {
+                    ranks &= ranks - 1;
+                }
+                TOP_FIVE_RANKS[mask] = ranks;
+            }
+        }
+    }
+
     /**
-     * Evaluates a poker hand and returns a numeric score representing its strength.
-     * Higher score means stronger hand. Uses player's two hole cards plus community cards.
+     * Evaluates a poker hand and returns its {@link HandRank}, from 1 for the weakest five-card
+     * hand to {@link HandRank#NUM_RANKS} for a royal flush. Higher rank means stronger hand and
+     * equal ranks are exact ties. Uses player's two hole cards plus community cards.
      *
      * @param playerHand The player's two hole cards
      * @param communityCards The community cards (up to 5)
-     * @return A long representing the hand's strength
+     * @return The hand's rank
+     * @throws IllegalArgumentException If there are fewer than five cards in total
      */
-    public static long evaluateHand(Card[] playerHand, List<Card> communityCards) {
+    public static int evaluateHand(Card[] playerHand, List<Card> communityCards) {
         // Combine hole cards and community cards
         List<Card> allCards = new ArrayList<>();
+        // Bit mask of the same cards, for the flush and straight table lookups
+        long cardMask = 0;
         // Add player cards, filtering out nulls
         for (Card card : playerHand) {
             if (card != null) {
                 allCards.add(card);
+                cardMask |= Cards.mask(Cards.fromCard(card));
             }
         }
         // Add community cards, filtering out nulls
         for (Card card : communityCards) {
             if (card != null) {
                 allCards.add(card);
+                cardMask |= Cards.mask(Cards.fromCard(card));
             }
         }
+        if (allCards.size() < 5) {
+            throw new IllegalArgumentException("A hand rank needs at least five cards, got " + allCards.size());
+        }
 
         // Sort cards by rank in descending order
         allCards.sort(Comparator.comparing((Card c) -> c.rank).reversed());
@@ -36,204 +77,95 @@ public class HandEvaluator {
         // Create a copy of the cards to mark as used
         boolean[] used = new boolean[allCards.size()];
 
-        // Start evaluating from highest hand type
-        long score = 0;
-
         // Check for straight flush
-        score = checkStraightFlush(allCards, used);
-        if (score > 0) {
-            return score * 1_00_00_00_00_00_00_00_00L;
+        int high = checkStraightFlush(cardMask);
+        if (high > 0) {
+            return HandRank.of(FastHandEvaluator.STRAIGHT_FLUSH, high);
         }
 
-        // Reset used cards for next check
-        Arrays.fill(used, false);
-
         // Check for four of a kind
-        score = checkFourOfAKind(allCards, used);
-        if (score > 0) {
+        int quads = checkFourOfAKind(allCards, used);
+        if (quads > 0) {
             // Add high card for kicker
-            return score * 1_00_00_00_00_00_00_00L + addHighestUnusedCard(allCards, used);
+            return HandRank.of(FastHandEvaluator.FOUR_OF_A_KIND, quads, addHighestUnusedCard(allCards, used));
         }
 
         // Reset used cards
         Arrays.fill(used, false);
 
         // Check for full house
-        score = checkFullHouse(allCards, used);
-        if (score > 0) {
-            return score * 1_00_00_00_00_00_0L;
+        int[] fullHouse = checkFullHouse(allCards, used);
+        if (fullHouse != null) {
+            return HandRank.of(FastHandEvaluator.FULL_HOUSE, fullHouse);
         }
 
-        // Reset used cards
-        Arrays.fill(used, false);
-
         // Check for flush
-        score = checkFlush(allCards, used);
-        if (score > 0) {
-            return score * 1_00_00_00_00_00L;
+        int[] flush = checkFlush(cardMask);
+        if (flush != null) {
+            return HandRank.of(FastHandEvaluator.FLUSH, flush);
         }
 
-        // Reset used cards
-        Arrays.fill(used, false);
-
         // Check for straight
-        score = checkStraight(allCards, used);
-        if (score > 0) {
-            return score * 1_00_00_00_00L;
+        high = checkStraight(cardMask);
+        if (high > 0) {
+            return HandRank.of(FastHandEvaluator.STRAIGHT, high);
         }
 
         // Reset used cards
         Arrays.fill(used, false);
 
         // Check for three of a kind
-        score = checkThreeOfAKind(allCards, used);
-        if (score > 0) {
+        int trips = checkThreeOfAKind(allCards, used);
+        if (trips > 0) {
             // Add two high cards for kickers
-            long kicker1 = addHighestUnusedCard(allCards, used);
-            long kicker2 = addHighestUnusedCard(allCards, used);
-            score = score * 1_00_00_00L + kicker1 + kicker2;
-            return score;
+            int kicker1 = addHighestUnusedCard(allCards, used);
+            int kicker2 = addHighestUnusedCard(allCards, used);
+            return HandRank.of(FastHandEvaluator.THREE_OF_A_KIND, trips, kicker1, kicker2);
         }
 
         // Reset used cards
         Arrays.fill(used, false);
 
         // Check for two pair
-        score = checkTwoPair(allCards, used);
-        if (score > 0) {
+        int[] twoPair = checkTwoPair(allCards, used);
+        if (twoPair != null) {
             // Add one high card for kicker
-            score = score * 1_00_0L + addHighestUnusedCard(allCards, used);
-            return score;
+            return HandRank.of(FastHandEvaluator.TWO_PAIR, twoPair[0], twoPair[1], addHighestUnusedCard(allCards, used));
         }
 
         // Reset used cards
         Arrays.fill(used, false);
 
         // Check for one pair
-        score = checkOnePair(allCards, used);
-        if (score > 0) {
+        int pair = checkOnePair(allCards, used);
+        if (pair > 0) {
             // Add three high cards for kickers
-            long kicker1 = addHighestUnusedCard(allCards, used);
-            long kicker2 = addHighestUnusedCard(allCards, used);
-            long kicker3 = addHighestUnusedCard(allCards, used);
-            score = score * 1_00L + kicker1 + kicker2 + kicker3;
-            return score;
+            int kicker1 = addHighestUnusedCard(allCards, used);
+            int kicker2 = addHighestUnusedCard(allCards, used);
+            int kicker3 = addHighestUnusedCard(allCards, used);
+            return HandRank.of(FastHandEvaluator.ONE_PAIR, pair, kicker1, kicker2, kicker3);
         }
 
         // If nothing else, check for high card
-        return checkHighCard(allCards);
+        return HandRank.of(FastHandEvaluator.HIGH_CARD, checkHighCard(allCards));
     }
 
     /**
-     * Checks for a straight flush and returns its value, or 0 if none
+     * Checks for a straight flush and returns the rank of its high card (5 for A-5), or 0 if none
      */
-    private static long checkStraightFlush(List<Card> cards, boolean[] used) {
-        // Check for straight flush in each suit
+    private static int checkStraightFlush(long cardMask) {
+        // At most one suit can hold five of seven cards, so the best of the four lookups is the answer
+        int high = 0;
         for (int suit = 0; suit < 4; suit++) {
-            // Get all cards of this suit
-            List<Card> sameSuit = new ArrayList<>();
-            for (Card card : cards) {
-                if (card.suit == suit) {
-                    sameSuit.add(card);
-                }
-            }
-
-            // Need at least 5 cards of same suit for a straight flush
-            if (sameSuit.size() < 5) {
-                continue;
-            }
-
-            // Sort by rank
-            sameSuit.sort(Comparator.comparing((Card c) -> c.rank).reversed());
-
-            // Check for straight (considering Ace can be low)
-            for (int i = 0; i <= sameSuit.size() - 5; i++) {
-                if (isStraight(sameSuit.subList(i, sameSuit.size()))) {
-                    // Mark cards as used
-                    for (int j = 0; j < 5; j++) {
-                        Card card = sameSuit.get(i + j);
-                        int index = cards.indexOf(card);
-                        used[index] = true;
-                    }
-
-                    // Value is the high card of the straight
-                    int highCard = sameSuit.get(i).rank;
-
-                    // Special case: A-5 straight (Ace is low)
-                    if (highCard == 14 && sameSuit.get(i + 1).rank == 5) {
-                        return 5; // A-5 straight flush is valued as 5-high
-                    }
-
-                    return highCard - 4; // Subtract 4 to get the correct value (e.g., 6-high straight = 02)
-                }
-            }
-
-            // Check special case: A-5 straight flush (where Ace is low)
-            if (hasAceLowStraight(sameSuit)) {
-                // Mark cards as used
-                for (Card card : sameSuit) {
-                    if (card.rank == 14 || card.rank <= 5) {
-                        int index = cards.indexOf(card);
-                        used[index] = true;
-                    }
-                }
-                return 1; // A-5 straight flush is the lowest (01)
-            }
-        }
-
-        return 0; // No straight flush
-    }
-
-    /**
-     * Checks if a sorted list of cards contains a straight
-     */
-    private static boolean isStraight(List<Card> sortedCards) {
-        if (sortedCards.size() < 5) return false;
-
-        int count = 1;
-        int lastRank = sortedCards.get(0).rank;
-
-        for (int i = 1; i < sortedCards.size() && count < 5; i++) {
-            int currentRank = sortedCards.get(i).rank;
-
-            if (currentRank == lastRank - 1) {
-                count++;
-                lastRank = currentRank;
-                if (count == 5) return true;
-            } else if (currentRank != lastRank) { // Skip duplicates
-                count = 1;
-                lastRank = currentRank;
-            }
+            high = Math.max(high, STRAIGHT_HIGH[Cards.suitRanks(cardMask, suit)]);
         }
-
-        return false;
+        return high;
     }
 
     /**
-     * Checks for Ace-low straight (A-2-3-4-5)
+     * Checks for four of a kind and returns its rank, or 0 if none
      */
-    private static boolean hasAceLowStraight(List<Card> cards) {
-        boolean hasAce = false;
-        boolean has2 = false;
-        boolean has3 = false;
-        boolean has4 = false;
-        boolean has5 = false;
-
-        for (Card card : cards) {
-            if (card.rank == 14) hasAce = true;
-            else if (card.rank == 2) has2 = true;
-            else if (card.rank == 3) has3 = true;
-            else if (card.rank == 4) has4 = true;
-            else if (card.rank == 5) has5 = true;
-        }
-
-        return hasAce && has2 && has3 && has4 && has5;
-    }
-
-    /**
-     * Checks for four of a kind and returns its value, or 0 if none
-     */
-    private static long checkFourOfAKind(List<Card> cards, boolean[] used) {
+    private static int checkFourOfAKind(List<Card> cards, boolean[] used) {
         Map<Integer, Integer> rankCount = countRanks(cards);
 
         for (Map.Entry<Integer, Integer> entry : rankCount.entrySet()) {
@@ -255,9 +187,9 @@ public class HandEvaluator {
     }
 
     /**
-     * Checks for full house and returns its value, or 0 if none
+     * Checks for full house and returns the ranks of its three of a kind and pair, or null if none
      */
-    private static long checkFullHouse(List<Card> cards, boolean[] used) {
+    private static int[] checkFullHouse(List<Card> cards, boolean[] used) {
         Map<Integer, Integer> rankCount = countRanks(cards);
         int threeOfAKindRank = 0;
         int pairRank = 0;
@@ -273,7 +205,7 @@ public class HandEvaluator {
         }
 
         if (threeOfAKindRank == 0) {
-            return 0; // No three of a kind, can't have a full house
+            return null; // No three of a kind, can't have a full house
         }
 
         // Mark the three cards as used
@@ -296,7 +228,7 @@ public class HandEvaluator {
         }
 
         if (pairRank == 0) {
-            return 0; // No pair to complete the full house
+            return null; // No pair to complete the full house
         }
 
         // Mark the pair as used
@@ -308,116 +240,40 @@ public class HandEvaluator {
             }
         }
 
-        // Value is three of a kind rank * 100 + pair rank
-        return threeOfAKindRank * 14L + pairRank;
+        return new int[]{threeOfAKindRank, pairRank};
     }
 
     /**
-     * Checks for flush and returns its value, or 0 if none
+     * Checks for flush and returns the ranks of its five highest cards, highest first, or null if none
      */
-    private static long checkFlush(List<Card> cards, boolean[] used) {
-        int[] suitCounts = new int[4];
-
-        // Count cards by suit
-        for (Card card : cards) {
-            suitCounts[card.suit]++;
-        }
-
-        // Find the suit with at least 5 cards
-        int flushSuit = -1;
+    private static int[] checkFlush(long cardMask) {
+        // Suits without five cards read 0 from the table, and at most one suit can have five
         for (int suit = 0; suit < 4; suit++) {
-            if (suitCounts[suit] >= 5) {
-                flushSuit = suit;
-                break;
-            }
-        }
-
-        if (flushSuit == -1) {
-            return 0; // No flush
-        }
-
-        // Get all cards of the flush suit
-        List<Card> flushCards = new ArrayList<>();
-        for (Card card : cards) {
-            if (card.suit == flushSuit) {
-                flushCards.add(card);
-            }
-        }
-
-        // Sort by rank (should already be sorted but just to be sure)
-        flushCards.sort(Comparator.comparing((Card c) -> c.rank).reversed());
-
-        // Mark the top 5 cards as used
-        long value = 0;
-        for (int i = 0; i < 5; i++) {
-            Card card = flushCards.get(i);
-            int index = cards.indexOf(card);
-            used[index] = true;
-
-            // Encode the rank in the value (higher digits for higher cards)
-            value += card.rank;
-        }
-
-        return value;
-    }
-
-    /**
-     * Checks for straight and returns its value, or 0 if none
-     */
-    private static long checkStraight(List<Card> cards, boolean[] used) {
-        // Remove duplicate ranks for straight checking
-        List<Card> distinctRanks = new ArrayList<>();
-        int lastRank = -1;
-
-        for (Card card : cards) {
-            if (card.rank != lastRank) {
-                distinctRanks.add(card);
-                lastRank = card.rank;
-            }
-        }
-
-        // Check for straight
-        for (int i = 0; i <= distinctRanks.size() - 5; i++) {
-            if (distinctRanks.get(i).rank == distinctRanks.get(i + 4).rank + 4) {
-                // Value is the high card of the straight
-                int highCard = distinctRanks.get(i).rank;
-                return highCard;
+            int ranks = TOP_FIVE_RANKS[Cards.suitRanks(cardMask, suit)];
+            if (ranks != 0) {
+                int[] flush = new int[5];
+                for (int i = 0; i < 5; i++) {
+                    int highest = 31 - Integer.numberOfLeadingZeros(ranks);
+                    flush[i] = highest + 2;
+                    ranks &= ~(1 << highest);
+                }
+                return flush;
             }
         }
-
-        // Check for A-5 straight (Ace is low)
-        if (hasAceLowStraightDistinct(distinctRanks)) {
-            return 5; // A-5 straight is valued as 5-high
-        }
-
-        return 0; // No straight
+        return null;
     }
 
     /**
-     * Checks for Ace-low straight (A-2-3-4-5) in cards with distinct ranks
+     * Checks for straight and returns the rank of its high card (5 for A-5), or 0 if none
      */
-    private static boolean hasAceLowStraightDistinct(List<Card> distinctCards) {
-        boolean hasAce = false;
-        boolean has2 = false;
-        boolean has3 = false;
-        boolean has4 = false;
-        boolean has5 = false;
-
-        for (Card card : distinctCards) {
-            if (card.rank == 14) hasAce = true;
-            else if (card.rank == 2) has2 = true;
-            else if (card.rank == 3) has3 = true;
-            else if (card.rank == 4) has4 = true;
-            else if (card.rank == 5) has5 = true;
-        }
-
-        return hasAce && has2 && has3 && has4 && has5;
+    private static int checkStraight(long cardMask) {
+        return STRAIGHT_HIGH[Cards.rankMask(cardMask)];
     }
 
     /**
-     * Checks for three of a kind and returns its value, or 0 if none
+     * Checks for three of a kind and returns its rank, or 0 if none
      */
-    private static long checkThreeOfAKind(List<Card> cards, boolean[] used) {
+    private static int checkThreeOfAKind(List<Card> cards, boolean[] used) {
         Map<Integer, Integer> rankCount = countRanks(cards);
 
         // Find highest three of a kind
@@ -448,9 +304,9 @@ public class HandEvaluator {
     }
 
     /**
-     * Checks for two pair and returns its value, or 0 if none
+     * Checks for two pair and returns the ranks of its high and low pair, or null if none
      */
-    private static long checkTwoPair(List<Card> cards, boolean[] used) {
+    private static int[] checkTwoPair(List<Card> cards, boolean[] used) {
         Map<Integer, Integer> rankCount = countRanks(cards);
         List<Integer> pairs = new ArrayList<>();
 
@@ -468,7 +324,7 @@ public class HandEvaluator {
         pairs.sort(Comparator.reverseOrder());
 
         if (pairs.size() < 2) {
-            return 0; // Less than two pairs
+            return null; // Less than two pairs
         }
 
         // Take the two highest pairs
@@ -486,14 +342,13 @@ public class HandEvaluator {
             }
         }
 
-        // Value is high pair * 100 + low pair
-        return highPair * 14L + lowPair;
+        return new int[]{highPair, lowPair};
     }
 
     /**
-     * Checks for one pair and returns its value, or 0 if none
+     * Checks for one pair and returns its rank, or 0 if none
      */
-    private static long checkOnePair(List<Card> cards, boolean[] used) {
+    private static int checkOnePair(List<Card> cards, boolean[] used) {
         Map<Integer, Integer> rankCount = countRanks(cards);
 
         // Find highest pair
@@ -524,19 +379,19 @@ public class HandEvaluator {
     }
 
     /**
-     * Checks for high card and returns its value
+     * Checks for high card and returns the ranks of the top five cards, highest first
      */
-    private static long checkHighCard(List<Card> cards) {
+    private static int[] checkHighCard(List<Card> cards) {
         // Sort cards by rank (should already be sorted)
         cards.sort(Comparator.comparing((Card c) -> c.rank).reversed());
 
         // Use top 5 cards
-        long value = 0;
-        for (int i = 0; i < Math.min(5, cards.size()); i++) {
-            value = value + cards.get(i).rank;
+        int[] ranks = new int[5];
+        for (int i = 0; i < 5; i++) {
+            ranks[i] = cards.get(i).rank;
         }
 
-        return value;
+        return ranks;
     }
 
     /**
@@ -566,27 +421,9 @@ public class HandEvaluator {
     }
 
     /**
-     * Converts a hand score to a description
+     * Converts a hand rank to a description of its category and cards, e.g. "Two Pair, K K 9 9 A".
      */
-    public static String describeHand(long score) {
-        if (score >= 1_00_00_00_00_00_00_00_00L) {
-            return "Straight Flush";
-        } else if (score >= 1_00_00_00_00_00_00_00L) {
-            return "Four of a Kind";
-        } else if (score >= 1_00_00_00_00_00_00L) {
-            return "Full House";
-        } else if (score >= 1_00_00_00_00_00L) {
-            return "Flush";
-        } else if (score >= 1_00_00_00_00L) {
-            return "Straight";
-        } else if (score >= 1_00_00_00L) {
-            return "Three of a Kind";
-        } else if (score >= 1_00_00L) {
-            return "Two Pair";
-        } else if (score > 1_00L) {
-            return "One Pair";
-        } else {
-            return "High Card";
-        }
+    public static String describeHand(int handRank) {
+        return HandRank.describe(handRank);
     }
-}
\ No newline at end of file
+}
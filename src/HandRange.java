@@ -0,0 +1,307 @@
+import java.util.Arrays;
+
+/**
+ * A weighted set of specific two card starting hands (combos).
+ *
+ * Ranges are built from the 13x13 starting hand table used by {@link Game}: pairs on the
+ * diagonal, suited hands above it and offsuit hands below it. Every selected class expands
+ * into all of its combos (6 for a pair, 4 suited, 12 offsuit), each carrying the class weight.
+ * Combos can be drawn in proportion to their weights in constant time.
+ */
+public class HandRange {
+    // Weight 1.0 in integer units
+    private static final int WEIGHT_UNITS = 1000;
+    private static final int SAMPLE_BITS = 24;
+
+    private final int[] firstCards;
+    private final int[] secondCards;
+    private final int[] weights;
+    // Vose alias table: pick a slot uniformly, keep it below its threshold, otherwise take its alias
+    private final int[] thresholds;
+    private final int[] aliases;
+
+    private HandRange(int[] firstCards, int[] secondCards, int[] weights) {
+        this.firstCards = firstCards;
+        this.secondCards = secondCards;
+        this.weights = weights;
+        this.thresholds = new int[weights.length];
+        this.aliases = new int[weights.length];
+        buildAliasTable();
+    }
+
+    /**
+     * Builds a range from a 13x13 selection table where every selected class has full weight.
+     */
+    public static HandRange fromTable(boolean[][] rangeTable) {
+        double[][] weights = new double[13][13];
+        for (int i = 0; i < 13; i++) {
+            for (int j = 0; j < 13; j++) {
+                weights[i][j] = rangeTable[i][j] ? 1.0 : 0.0;
+            }
+        }
+        return fromWeights(weights);
+    }
+
+    /**
+     * Builds a range from a 13x13 table of class weights between 0 and 1.
+     */
+    public static HandRange fromWeights(double[][] classWeights) {
+        int[] firstCards = new int[1326];
+        int[] secondCards = new int[1326];
+        int[] weights = new int[1326];
+        int size = 0;
+        for (int i = 0; i < 13; i++) {
+            for (int j = 0; j < 13; j++) {
+                double weight = classWeights[i][j];
+                if (weight < 0 || weight > 1) {
+                    throw new IllegalArgumentException("Weights must be between 0 and 1");
+                }
+                int units = (int) Math.round(weight * WEIGHT_UNITS);
+                if (units == 0) {
+                    continue;
+                }
+                // Row and column 0 are aces, 12 are deuces
+                int highRank = 14 - Math.min(i, j);
+                int lowRank = 14 - Math.max(i, j);
+                for (int suit1 = 0; suit1 < 4; suit1++) {
+                    for (int suit2 = 0; suit2 < 4; suit2++) {
+                        boolean include;
+                        if (i == j) {
+                            include = suit1 < suit2;
+                        } else if (i < j) {
+                            include = suit1 == suit2;
+                        } else {
+                            include = suit1 != suit2;
+                        }
+                        if (include) {
+                            firstCards[size] = Cards.code(highRank, suit1);
+                            secondCards[size] = Cards.code(lowRank, suit2);
+                            weights[size] = units;
+                            size++;
+                        }
+                    }
+                }
+            }
+        }
+        return new HandRange(Arrays.copyOf(firstCards, size), Arrays.copyOf(secondCards, size),
+                Arrays.copyOf(weights, size));
+    }
+
+    /**
+     * Parses a comma separated list of classes such as "AA,AKs,KQo", each optionally
+     * followed by a weight, as in "AQo:0.5".
+     */
+    public static HandRange parse(String text) {
+        double[][] weights = new double[13][13];
+        for (String token : text.split(",")) {
+            token = token.trim();
+            if (token.isEmpty()) {
+                continue;
+            }
+            double weight = 1.0;
+            int colon = token.indexOf(':');
+            if (colon >= 0) {
+                weight = Double.parseDouble(token.substring(colon + 1));
+                token = token.substring(0, colon);
+            }
+            int[] cell = tableCell(token);
+            weights[cell[0]][cell[1]] = weight;
+        }
+        return fromWeights(weights);
+    }
+
+    /**
+     * Returns the row and column of a class such as "AKs", "T9o" or "77" in the 13x13 table.
+     */
+    public static int[] tableCell(String handClass) {
+        if (handClass.length() < 2 || handClass.length() > 3) {
+            throw new IllegalArgumentException("Invalid hand class: " + handClass);
+        }
+        int first = 14 - getRankFromChar(handClass.charAt(0));
+        int second = 14 - getRankFromChar(handClass.charAt(1));
+        int high = Math.min(first, second);
+        int low = Math.max(first, second);
+        if (high == low) {
+            if (handClass.length() != 2) {
+                throw new IllegalArgumentException("Pairs take no suffix: " + handClass);
+            }
+            return new int[]{high, low};
+        }
+        if (handClass.length() != 3) {
+            throw new IllegalArgumentException("Missing 's' or 'o' suffix: " + handClass);
+        }
+        switch (handClass.charAt(2)) {
+            case 's':
+                return new int[]{high, low};
+            case 'o':
+                return new int[]{low, high};
+            default:
+                throw new IllegalArgumentException("Invalid hand class: " + handClass);
+        }
+    }
+
+    /**
+     * Returns a copy of this range without the combos that use any of the given cards.
+     *
+     * @param deadCards Bit mask with bit {@code code} set for every blocked card code
+     */
+    public HandRange without(long deadCards) {
+        int[] firstCards = new int[size()];
+        int[] secondCards = new int[size()];
+        int[] weights = new int[size()];
+        int size = 0;
+        for (int i = 0; i < size(); i++) {
+            if (!Cards.contains(deadCards, this.firstCards[i]) && !Cards.contains(deadCards, this.secondCards[i])) {
+                firstCards[size] = this.firstCards[i];
+                secondCards[size] = this.secondCards[i];
+                weights[size] = this.weights[i];
+                size++;
+            }
+        }
+        return new HandRange(Arrays.copyOf(firstCards, size), Arrays.copyOf(secondCards, size),
+                Arrays.copyOf(weights, size));
+    }
+
+    /**
+     * Draws a combo index with probability proportional to its weight.
+     */
+    public int sample(CardRandom random) {
+        int slot = random.nextInt(weights.length);
+        return random.nextInt(1 << SAMPLE_BITS) < thresholds[slot] ? slot : aliases[slot];
+    }
+
+    /**
+     * Draws a combo from one number instead of two random ones: its whole part picks the alias
+     * table slot and its remainder decides between the slot and its alias. A uniform fraction
+     * picks each combo with probability proportional to its weight, and fractions spread evenly
+     * over [0, 1) pick every combo close to its weight's share of the time.
+     *
+     * @param fraction Position from 0 (inclusive) to 1 (exclusive)
+     */
+    public int comboAt(double fraction) {
+        double scaled = fraction * weights.length;
+        int slot = (int) scaled;
+        return (int) ((scaled - slot) * (1 << SAMPLE_BITS)) < thresholds[slot] ? slot : aliases[slot];
+    }
+
+    public int size() {
+        return weights.length;
+    }
+
+    public boolean isEmpty() {
+        return weights.length == 0;
+    }
+
+    public int firstCard(int combo) {
+        return firstCards[combo];
+    }
+
+    public int secondCard(int combo) {
+        return secondCards[combo];
+    }
+
+    /**
+     * Returns a combo's weight, between 0 and 1.
+     */
+    public double weight(int combo) {
+        return (double) weights[combo] / WEIGHT_UNITS;
+    }
+
+    /**
+     * Returns every combo's weight in thousandths, indexed by {@link Combos#index}, 0 for combos
+     * outside the range. Ranges holding the same combos at the same weights give equal arrays,
+     * however they were written.
+     */
+    public int[] comboWeights() {
+        int[] comboWeights = new int[Combos.NUM_COMBOS];
+        for (int i = 0; i < weights.length; i++) {
+            comboWeights[Combos.index(firstCards[i], secondCards[i])] = weights[i];
+        }
+        return comboWeights;
+    }
+
+    /**
+     * Returns the sum of every combo's weight.
+     */
+    public double totalWeight() {
+        long total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        return (double) total / WEIGHT_UNITS;
+    }
+
+    private void buildAliasTable() {
+        int n = weights.length;
+        if (n == 0) {
+            return;
+        }
+        long total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        // Scaled so that the average slot holds exactly 1
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = (double) weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[numSmall++] = i;
+            } else {
+                large[numLarge++] = i;
+            }
+        }
+        while (numSmall > 0 && numLarge > 0) {
+            int less = small[--numSmall];
+            int more = large[--numLarge];
+            thresholds[less] = (int) (scaled[less] * (1 << SAMPLE_BITS));
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[numSmall++] = more;
+            } else {
+                large[numLarge++] = more;
+            }
+        }
+        // Whatever is left holds (up to rounding) exactly 1 and always keeps its own slot
+        while (numLarge > 0) {
+            int slot = large[--numLarge];
+            thresholds[slot] = 1 << SAMPLE_BITS;
+            aliases[slot] = slot;
+        }
+        while (numSmall > 0) {
+            int slot = small[--numSmall];
+            thresholds[slot] = 1 << SAMPLE_BITS;
+            aliases[slot] = slot;
+        }
+    }
+
+    /**
+     * Converts a rank character into an integer.
+     *
+     * @param c The character representing the rank ('2'-'9', 'T', 'J', 'Q', 'K', 'A').
+     * @return The integer rank.
+     */
+    private static int getRankFromChar(char c) {
+        if (c >= '2' && c <= '9') {
+            return c - '0';
+        }
+        switch (c) {
+            case 'T':
+                return 10;
+            case 'J':
+                return 11;
+            case 'Q':
+                return 12;
+            case 'K':
+                return 13;
+            case 'A':
+                return 14;
+            default:
+                throw new IllegalArgumentException("Invalid rank character: " + c);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+import java.util.Arrays;
+
+/**
+ * Dense, collision-free ranking of five-card poker hands: every distinct hand value gets a rank
+ * from 1 (7-5-4-3-2 offsuit) to {@link #NUM_RANKS} (royal flush), so hands compare by rank and
+ * equal ranks are exactly the true ties. A rank fits in a {@code short}.
+ *
+ * Ranks number the packed score layout of {@link FastHandEvaluator}: the category above the
+ * ranks (2-14) that decide between hands of that category, four bits each, most significant
+ * first. The 7,462 values a five-card hand can have are generated straight from their categories
+ * and ranks, without evaluating any cards, so converting an evaluator's score to a rank also
+ * checks that the score is a real hand value. Scores convert to ranks through a small hash
+ * table and ranks back to scores through a sorted array.
+ *
+ * The simulation loops keep comparing packed scores: they are collision-free and order the same
+ * way, so a comparison costs the same, and converting every score would only add a lookup.
+ * Ranks are for storing, tabulating and describing hands.
+ */
+public final class HandRank {
+    public static final int NUM_RANKS = 7462;
+
+    private static final String[] CATEGORY_NAMES = {
+            "High Card", "One Pair", "Two Pair", "Three of a Kind", "Straight",
+            "Flush", "Full House", "Four of a Kind", "Straight Flush"
+    };
+    private static final int CATEGORY_SHIFT = 20;
+
+    // SCORES[rank - 1] is the packed score of a rank, ascending
+    private static final int[] SCORES = new int[NUM_RANKS];
+    // Open addressing table from packed score to rank; 0 is never a score, so it marks empty slots
+    private static final int SCORE_TABLE_BITS = 14;
+    private static final int SCORE_TABLE_MASK = (1 << SCORE_TABLE_BITS) - 1;
+    private static final int[] SCORE_KEYS = new int[1 << SCORE_TABLE_BITS];
+    private static final short[] SCORE_RANKS = new short[1 << SCORE_TABLE_BITS];
+
+    static {
+        // Room for more than expected, so a miscount fails the check below rather than the array bounds
+        int[] scores = new int[2 * NUM_RANKS];
+        int count = 0;
+        // Five distinct ranks: a straight or high card, and the same of one suit
+        for (int mask = 0; mask < 1 << 13; mask++) {
+            if (Integer.bitCount(mask) != 5) {
+                continue;
+            }
+            int high = fiveCardStraightHigh(mask);
+            if (high != 0) {
+                scores[count++] = pack(FastHandEvaluator.STRAIGHT, high);
+                scores[count++] = pack(FastHandEvaluator.STRAIGHT_FLUSH, high);
+            } else {
+                int[] ranks = ranksOf(mask);
+                scores[count++] = pack(FastHandEvaluator.HIGH_CARD, ranks);
+                scores[count++] = pack(FastHandEvaluator.FLUSH, ranks);
+            }
+        }
+        for (int pair = 2; pair <= 14; pair++) {
+            // Kickers never share the rank of the paired, tripped or quadrupled cards
+            int others = ((1 << 13) - 1) & ~(1 << (pair - 2));
+            for (int mask = others; mask != 0; mask = (mask - 1) & others) {
+                int[] kickers = ranksOf(mask);
+                switch (kickers.length) {
+                    case 1:
+                        scores[count++] = pack(FastHandEvaluator.FOUR_OF_A_KIND, pair, kickers[0]);
+                        scores[count++] = pack(FastHandEvaluator.FULL_HOUSE, pair, kickers[0]);
+                        break;
+                    case 2:
+                        scores[count++] = pack(FastHandEvaluator.THREE_OF_A_KIND, pair, kickers[0], kickers[1]);
+                        break;
+                    case 3:
+                        scores[count++] = pack(FastHandEvaluator.ONE_PAIR, pair, kickers[0], kickers[1], kickers[2]);
+                        break;
+                    default:
+                }
+            }
+            for (int lowPair = 2; lowPair < pair; lowPair++) {
+                for (int kicker = 2; kicker <= 14; kicker++) {
+                    if (kicker != pair && kicker != lowPair) {
+                        scores[count++] = pack(FastHandEvaluator.TWO_PAIR, pair, lowPair, kicker);
+                    }
+                }
+            }
+        }
+        if (count != NUM_RANKS) {
+            throw new IllegalStateException("Expected " + NUM_RANKS + " hand values, generated " + count);
+        }
+        Arrays.sort(scores, 0, count);
+        for (int i = 1; i < NUM_RANKS; i++) {
+            if (scores[i] == scores[i - 1]) {
+                throw new IllegalStateException("Hand value listed twice: " + scores[i]);
+            }
+        }
+        System.arraycopy(scores, 0, SCORES, 0, NUM_RANKS);
+        for (int i = 0; i < NUM_RANKS; i++) {
+            int slot = scoreSlot(SCORES[i]);
+            while (SCORE_KEYS[slot] != 0) {
+                slot = (slot + 1) & SCORE_TABLE_MASK;
+            }
+            SCORE_KEYS[slot] = SCORES[i];
+            SCORE_RANKS[slot] = (short) (i + 1);
+        }
+    }
+
+    private HandRank() {
+    }
+
+    /**
+     * Converts the score of a hand of five to seven cards to its rank.
+     *
+     * @param score A {@link FastHandEvaluator} score
+     * @return The rank, 1 to {@link #NUM_RANKS}
+     * @throws IllegalArgumentException If the score is not that of a complete five-card hand
+     */
+    public static int of(int score) {
+        int slot = scoreSlot(score);
+        while (SCORE_KEYS[slot] != score) {
+            if (SCORE_KEYS[slot] == 0) {
+                throw new IllegalArgumentException("Not the score of a five-card hand: " + score);
+            }
+            slot = (slot + 1) & SCORE_TABLE_MASK;
+        }
+        return SCORE_RANKS[slot];
+    }
+
+    /**
+     * Returns the rank of a hand given by its category and the ranks that decide between hands of
+     * that category, most significant first, as listed by {@link #kickers(int)}: for example
+     * {@code of(FULL_HOUSE, 13, 9)} for kings full of nines.
+     *
+     * @throws IllegalArgumentException If no five-card hand has that category and those ranks
+     */
+    public static int of(int category, int... ranks) {
+        if (category < 0 || category >= FastHandEvaluator.NUM_CATEGORIES || ranks.length == 0 || ranks.length > 5) {
+            throw new IllegalArgumentException("Not a hand value: category " + category + ", " + ranks.length + " ranks");
+        }
+        for (int rank : ranks) {
+            if (rank < 2 || rank > 14) {
+                throw new IllegalArgumentException("Card ranks run from 2 to 14: " + rank);
+            }
+        }
+        return of(pack(category, ranks));
+    }
+
+    /**
+     * Ranks the first {@code count} card codes of {@code cards}, five to seven of them.
+     */
+    public static int evaluate(int[] cards, int count) {
+        if (count < 5) {
+            throw new IllegalArgumentException("A hand rank needs at least five cards");
+        }
+        return of(FastHandEvaluator.evaluate(cards, count));
+    }
+
+    /**
+     * Returns the {@link FastHandEvaluator} score of a rank.
+     */
+    public static int score(int rank) {
+        checkRank(rank);
+        return SCORES[rank - 1];
+    }
+
+    /**
+     * Returns the category of a rank, {@link FastHandEvaluator#HIGH_CARD} to {@link FastHandEvaluator#STRAIGHT_FLUSH}.
+     */
+    public static int category(int rank) {
+        return FastHandEvaluator.category(score(rank));
+    }
+
+    /**
+     * Returns the ranks (2-14) that decide between hands of the same category, most significant
+     * first: the quads, trips or pairs before the kickers, the full house as trips then pair,
+     * and only the top card of a straight (5 for the wheel).
+     */
+    public static int[] kickers(int rank) {
+        int score = score(rank);
+        int[] kickers = new int[5];
+        int count = 0;
+        for (int shift = 16; shift >= 0; shift -= 4) {
+            int kicker = (score >>> shift) & 0xF;
+            if (kicker != 0) {
+                kickers[count++] = kicker;
+            }
+        }
+        return Arrays.copyOf(kickers, count);
+    }
+
+    /**
+     * Returns the ranks (2-14) of the five cards making the hand, in the order they are read,
+     * e.g. {@code K K 9 9 A} for two pair, kings and nines with an ace.
+     */
+    public static int[] cardRanks(int rank) {
+        int category = category(rank);
+        int[] kickers = kickers(rank);
+        if (category == FastHandEvaluator.STRAIGHT || category == FastHandEvaluator.STRAIGHT_FLUSH) {
+            int high = kickers[0];
+            // The wheel is read 5-4-3-2-A
+            return high == 5 ? new int[]{5, 4, 3, 2, 14} : new int[]{high, high - 1, high - 2, high - 3, high - 4};
+        }
+        int[] groups;
+        switch (category) {
+            case FastHandEvaluator.ONE_PAIR:
+                groups = new int[]{2, 1, 1, 1};
+                break;
+            case FastHandEvaluator.TWO_PAIR:
+                groups = new int[]{2, 2, 1};
+                break;
+            case FastHandEvaluator.THREE_OF_A_KIND:
+                groups = new int[]{3, 1, 1};
+                break;
+            case FastHandEvaluator.FULL_HOUSE:
+                groups = new int[]{3, 2};
+                break;
+            case FastHandEvaluator.FOUR_OF_A_KIND:
+                groups = new int[]{4, 1};
+                break;
+            default:
+                groups = new int[]{1, 1, 1, 1, 1};
+        }
+        int[] ranks = new int[5];
+        int filled = 0;
+        for (int i = 0; i < groups.length; i++) {
+            for (int j = 0; j < groups[i]; j++) {
+                ranks[filled++] = kickers[i];
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Describes a rank by its category and card ranks, e.g. "Full House, K K K 9 9".
+     */
+    public static String describe(int rank) {
+        StringBuilder text = new StringBuilder(CATEGORY_NAMES[category(rank)]).append(',');
+        for (int cardRank : cardRanks(rank)) {
+            text.append(' ').append(Cards.toString(Cards.code(cardRank, 0)).charAt(0));
+        }
+        return text.toString();
+    }
+
+    private static void checkRank(int rank) {
+        if (rank < 1 || rank > NUM_RANKS) {
+            throw new IllegalArgumentException("Hand rank must be between 1 and " + NUM_RANKS + ": " + rank);
+        }
+    }
+
+    /**
+     * Packs a category and its deciding ranks into the score layout, ranks four bits each from bit 16 down.
+     */
+    private static int pack(int category, int... ranks) {
+        int score = category << CATEGORY_SHIFT;
+        for (int i = 0; i < ranks.length; i++) {
+            score |= ranks[i] << (16 - 4 * i);
+        }
+        return score;
+    }
+
+    /**
+     * Returns the ranks (2-14) in a 13-bit rank mask, highest first.
+     */
+    private static int[] ranksOf(int mask) {
+        int[] ranks = new int[Integer.bitCount(mask)];
+        for (int i = 0; i < ranks.length; i++) {
+            int high = 31 - Integer.numberOfLeadingZeros(mask);
+            ranks[i] = high + 2;
+            mask &= ~(1 << high);
+        }
+        return ranks;
+    }
+
+    /**
+     * Returns the top rank of the straight a mask of exactly five ranks forms, 5 for the wheel, or 0 if none.
+     */
+    private static int fiveCardStraightHigh(int mask) {
+        int low = Integer.numberOfTrailingZeros(mask);
+        if (mask == 0x1F << low) {
+            return low + 6;
+        }
+        // A-2-3-4-5: bits of the ace and the 2 to 5
+        return mask == 0x100F ? 5 : 0;
+    }
+
+    private static int scoreSlot(int score) {
+        return (score * 0x9E3779B9) >>> (32 - SCORE_TABLE_BITS);
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Fork-join Monte Carlo simulation of a spot with any number of players.
+ *
+ * The trial budget is divided into a fixed number of chunks. Each chunk deals from its own
+ * {@link Dealer} with its own random number generator, seeded from the chunk index,
+ * so the combined result only depends on the seed and the number of chunks and not on how
+ * the pool schedules them.
+ */
+// Fork-join tasks are never serialized
+@SuppressWarnings("serial")
+public class ParallelSimulation extends RecursiveTask<EquityTally> {
+    private final Spot spot;
+    private final int fromChunk;
+    private final int toChunk;
+
+    private ParallelSimulation(Spot spot, int fromChunk, int toChunk) {
+        this.spot = spot;
+        this.fromChunk = fromChunk;
+        this.toChunk = toChunk;
+    }
+
+    /**
+     * Runs the simulation and returns the combined tally of every chunk.
+     *
+     * @param pool         Pool to run the chunks on
+     * @param request      The spot and the total number of boards to deal
+     * @param seed         Seed the per-chunk seeds are drawn from
+     * @param splits       Number of chunks
+     * @param randomSource Creates each chunk's random number generator from its seed
+     * @return Wins, ties and pot shares for every player
+     */
+    public static EquityTally run(ForkJoinPool pool, EquityRequest request, long seed, int splits,
+                                  LongFunction<CardRandom> randomSource) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] chunkSeeds = new long[splits];
+        for (int i = 0; i < splits; i++) {
+            chunkSeeds[i] = seeds.nextLong();
+        }
+        Spot spot = new Spot(request, chunkSeeds, randomSource);
+        return pool.invoke(new ParallelSimulation(spot, 0, splits));
+    }
+
+    @Override
+    protected EquityTally compute() {
+        if (toChunk - fromChunk == 1) {
+            return simulateChunk(fromChunk);
+        }
+        int mid = (fromChunk + toChunk) >>> 1;
+        ParallelSimulation left = new ParallelSimulation(spot, fromChunk, mid);
+        left.fork();
+        EquityTally tally = new ParallelSimulation(spot, mid, toChunk).compute();
+        tally.add(left.join());
+        return tally;
+    }
+
+    private EquityTally simulateChunk(int chunk) {
+        EquityRequest request = spot.request;
+        int splits = spot.chunkSeeds.length;
+        int trials = request.maxTrials / splits + (chunk < request.maxTrials % splits ? 1 : 0);
+        EquityTally tally = new EquityTally(request.numPlayers);
+        EquityEngine.Scratch scratch = EquityEngine.Scratch.acquire();
+        try {
+            Dealer dealer = scratch.dealer;
+            dealer.reset(request.liveMask, spot.randomSource.apply(spot.chunkSeeds[chunk]));
+            EquityEngine.simulateBoards(request, dealer, scratch, trials, tally);
+        } finally {
+            scratch.release();
+        }
+        return tally;
+    }
+
+    /**
+     * Read-only inputs shared by every chunk.
+     */
+    private static class Spot {
+        final EquityRequest request;
+        final long[] chunkSeeds;
+        final LongFunction<CardRandom> randomSource;
+
+        Spot(EquityRequest request, long[] chunkSeeds, LongFunction<CardRandom> randomSource) {
+            this.request = request;
+            this.chunkSeeds = chunkSeeds;
+            this.randomSource = randomSource;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed exact preflop equities for every heads-up matchup of two specific hands.
+ *
+ * Matchups that only differ by a renaming of suits (and by which hand is listed first) share
+ * one canonical entry, which leaves 47,008 of them. {@link #main(String[])} enumerates all
+ * 1,712,304 boards for each one and writes the win and tie counts to a binary file:
+ *
+ * <pre>
+ * int magic, int version, int entries, int boards
+ * int[entries] canonical keys (first combo * 1326 + second combo), ascending
+ * int[entries] boards won by the first hand
+ * int[entries] boards tied
+ * </pre>
+ *
+ * At runtime the file is memory-mapped the first time it is queried and looked up by binary
+ * search over the key block, so opening a table costs nothing and nothing is parsed.
+ */
+public class PreflopEquityTable {
+    private static final int MAGIC = 0x50464551; // "PFEQ"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    static final int BOARDS = 1_712_304; // 48 choose 5
+
+    private final Path path;
+    private volatile MappedByteBuffer buffer;
+    private int entries;
+
+    /**
+     * Creates a table backed by a file written by {@link #generate(Path)}. The file is not touched until the first query.
+     */
+    public PreflopEquityTable(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Generates the table file. This plays out about 160 billion hands, so run it on as many cores as possible.
+     *
+     * @param args Path of the file to write
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: java PreflopEquityTable <output file>");
+            return;
+        }
+        long startTime = System.nanoTime();
+        generate(Path.of(args[0]));
+        System.out.printf("Wrote %s in %.1f s%n", args[0], (System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * Enumerates every canonical matchup in parallel and writes the table to a file.
+     */
+    public static void generate(Path output) throws IOException {
+        int[] keys = canonicalKeys();
+        int[] wins = new int[keys.length];
+        int[] ties = new int[keys.length];
+        IntStream.range(0, keys.length).parallel().forEach(i -> {
+            int first = keys[i] / Combos.NUM_COMBOS;
+            int second = keys[i] % Combos.NUM_COMBOS;
+            int[] outcome = enumerate(first, second);
+            wins[i] = outcome[0];
+            ties[i] = outcome[1];
+        });
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(keys.length);
+            out.writeInt(BOARDS);
+            for (int key : keys) {
+                out.writeInt(key);
+            }
+            for (int win : wins) {
+                out.writeInt(win);
+            }
+            for (int tie : ties) {
+                out.writeInt(tie);
+            }
+        }
+    }
+
+    /**
+     * Returns the first hand's win, the second hand's win and the tie percentages of two specific hands.
+     *
+     * @param firstHand  The first hand's card codes
+     * @param secondHand The second hand's card codes
+     */
+    public double[] headsUp(int[] firstHand, int[] secondHand) {
+        int first = Combos.index(firstHand[0], firstHand[1]);
+        int second = Combos.index(secondHand[0], secondHand[1]);
+        if ((Combos.cardMask(first) & Combos.cardMask(second)) != 0) {
+            throw new IllegalArgumentException("The hands share a card");
+        }
+        int[] outcome = lookup(first, second);
+        double[] toReturn = new double[3];
+        toReturn[0] = 100.0 * outcome[0] / BOARDS;
+        toReturn[1] = 100.0 * (BOARDS - outcome[0] - outcome[1]) / BOARDS;
+        toReturn[2] = 100.0 * outcome[1] / BOARDS;
+        return toReturn;
+    }
+
+    /**
+     * Calculates the preflop equity of one weighted range against another from the table.
+     * Every compatible pair of combos is weighted by the product of the combo weights.
+     */
+    public RangeVsRange.Result rangeVsRange(HandRange hero, HandRange villain) {
+        double[] heroNumerators = new double[Combos.NUM_COMBOS];
+        double[] heroDenominators = new double[Combos.NUM_COMBOS];
+        double[] villainNumerators = new double[Combos.NUM_COMBOS];
+        double[] villainDenominators = new double[Combos.NUM_COMBOS];
+        double[] heroWeights = new double[Combos.NUM_COMBOS];
+        double[] villainWeights = new double[Combos.NUM_COMBOS];
+        double totalNumerator = 0;
+        double totalDenominator = 0;
+        for (int i = 0; i < hero.size(); i++) {
+            int heroCombo = Combos.index(hero.firstCard(i), hero.secondCard(i));
+            heroWeights[heroCombo] = hero.weight(i);
+            for (int j = 0; j < villain.size(); j++) {
+                int villainCombo = Combos.index(villain.firstCard(j), villain.secondCard(j));
+                villainWeights[villainCombo] = villain.weight(j);
+                if ((Combos.cardMask(heroCombo) & Combos.cardMask(villainCombo)) != 0) {
+                    continue;
+                }
+                int[] outcome = lookup(heroCombo, villainCombo);
+                double equity = (outcome[0] + 0.5 * outcome[1]) / BOARDS;
+                heroNumerators[heroCombo] += villain.weight(j) * equity;
+                heroDenominators[heroCombo] += villain.weight(j);
+                villainNumerators[villainCombo] += hero.weight(i) * (1.0 - equity);
+                villainDenominators[villainCombo] += hero.weight(i);
+                totalNumerator += hero.weight(i) * villain.weight(j) * equity;
+                totalDenominator += hero.weight(i) * villain.weight(j);
+            }
+        }
+        if (totalDenominator == 0) {
+            throw new IllegalArgumentException("No compatible pair of combos in the two ranges");
+        }
+        double[] heroEquities = comboEquities(heroNumerators, heroDenominators);
+        double[] villainEquities = comboEquities(villainNumerators, villainDenominators);
+        return new RangeVsRange.Result(100.0 * totalNumerator / totalDenominator, 0.0, heroEquities, villainEquities,
+                RangeVsRange.histogram(heroEquities, heroWeights, heroDenominators),
+                RangeVsRange.histogram(villainEquities, villainWeights, villainDenominators), BOARDS, true);
+    }
+
+    /**
+     * Returns the first combo's wins and the ties against the second combo.
+     */
+    private int[] lookup(int first, int second) {
+        MappedByteBuffer table = mapped();
+        long canonical = canonicalize(first, second);
+        int key = (int) canonical;
+        int low = 0;
+        int high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midKey = table.getInt(HEADER_BYTES + 4 * mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                int wins = table.getInt(HEADER_BYTES + 4 * (entries + mid));
+                int ties = table.getInt(HEADER_BYTES + 4 * (2 * entries + mid));
+                // The canonical form may list the hands the other way round
+                boolean swapped = (canonical >>> 32) != 0;
+                return new int[]{swapped ? BOARDS - wins - ties : wins, ties};
+            }
+        }
+        throw new IllegalStateException("Matchup missing from preflop table: " + path);
+    }
+
+    private MappedByteBuffer mapped() {
+        MappedByteBuffer table = buffer;
+        if (table == null) {
+            synchronized (this) {
+                table = buffer;
+                if (table == null) {
+                    table = map();
+                    buffer = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    private MappedByteBuffer map() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (table.getInt(0) != MAGIC || table.getInt(4) != VERSION || table.getInt(12) != BOARDS) {
+                throw new IllegalStateException("Not a preflop equity table: " + path);
+            }
+            entries = table.getInt(8);
+            return table;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read preflop equity table: " + path, e);
+        }
+    }
+
+    /**
+     * Returns the canonical key of a matchup in the low 32 bits, with bit 32 set when the
+     * canonical form lists the second combo first.
+     */
+    static long canonicalize(int first, int second) {
+        int best = Integer.MAX_VALUE;
+        boolean bestSwapped = false;
+        for (int[] permutation : SuitIsomorphism.PERMUTATIONS) {
+            int mappedFirst = permute(first, permutation);
+            int mappedSecond = permute(second, permutation);
+            int key = Math.min(mappedFirst, mappedSecond) * Combos.NUM_COMBOS + Math.max(mappedFirst, mappedSecond);
+            if (key < best) {
+                best = key;
+                bestSwapped = mappedSecond < mappedFirst;
+            }
+        }
+        return (bestSwapped ? 1L << 32 : 0L) | best;
+    }
+
+    private static int permute(int combo, int[] permutation) {
+        int first = Combos.firstCard(combo);
+        int second = Combos.secondCard(combo);
+        return Combos.index(Cards.code(Cards.rank(first), permutation[Cards.suit(first)]),
+                Cards.code(Cards.rank(second), permutation[Cards.suit(second)]));
+    }
+
+    /**
+     * Returns the sorted canonical keys of every matchup of two disjoint combos.
+     */
+    private static int[] canonicalKeys() {
+        BitSet seen = new BitSet(Combos.NUM_COMBOS * Combos.NUM_COMBOS);
+        for (int first = 0; first < Combos.NUM_COMBOS; first++) {
+            for (int second = first + 1; second < Combos.NUM_COMBOS; second++) {
+                if ((Combos.cardMask(first) & Combos.cardMask(second)) == 0) {
+                    seen.set((int) canonicalize(first, second));
+                }
+            }
+        }
+        return seen.stream().toArray();
+    }
+
+    /**
+     * Plays out every board for two combos and returns the first combo's wins and the ties.
+     */
+    private static int[] enumerate(int first, int second) {
+        int a1 = Combos.firstCard(first);
+        int a2 = Combos.secondCard(first);
+        int b1 = Combos.firstCard(second);
+        int b2 = Combos.secondCard(second);
+        int[] live = Cards.codes(Cards.FULL_DECK & ~(Combos.cardMask(first) | Combos.cardMask(second)));
+        int wins = 0;
+        int ties = 0;
+        for (int i = 0; i < 48; i++) {
+            for (int j = i + 1; j < 48; j++) {
+                for (int k = j + 1; k < 48; k++) {
+                    for (int l = k + 1; l < 48; l++) {
+                        for (int m = l + 1; m < 48; m++) {
+                            int firstScore = FastHandEvaluator.evaluate(a1, a2, live[i], live[j], live[k], live[l], live[m]);
+                            int secondScore = FastHandEvaluator.evaluate(b1, b2, live[i], live[j], live[k], live[l], live[m]);
+                            if (firstScore > secondScore) {
+                                wins++;
+                            } else if (firstScore == secondScore) {
+                                ties++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return new int[]{wins, ties};
+    }
+
+    private static double[] comboEquities(double[] numerators, double[] denominators) {
+        double[] equities = new double[Combos.NUM_COMBOS];
+        for (int combo = 0; combo < Combos.NUM_COMBOS; combo++) {
+            equities[combo] = denominators[combo] > 0 ? 100.0 * numerators[combo] / denominators[combo] : Double.NaN;
+        }
+        return equities;
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * Receives intermediate estimates while a Monte Carlo calculation runs.
+ * Called on the calculating thread.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * @param partial Result over the trials dealt so far
+     * @return false to stop the calculation after this batch
+     */
+    boolean onProgress(EquityResult partial);
+}
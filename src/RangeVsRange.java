@@ -0,0 +1,409 @@
+import java.util.Arrays;
+
+/**
+ * Equity of one range against another, in aggregate and for every combo of both ranges.
+ *
+ * Each board is handled in one pass: every live combo of both ranges is scored once, the
+ * scores are sorted, and each combo's wins and ties against the other range are read off a
+ * merged scan. Combos blocked by the board are removed with word-level AND operations on the
+ * {@link Combos} bitmaps, and opponent combos sharing a card with a combo are subtracted
+ * through per-card weight sums.
+ *
+ * Boards are enumerated when few enough remain and sampled otherwise. Every compatible pair
+ * of combos has the same number of possible boards, so summing the weighted results of each
+ * board and dividing at the end gives the exact weighted equity when enumerating. Sampled
+ * results carry the standard error of that ratio over the boards dealt.
+ */
+public class RangeVsRange {
+    // Sampled boards between standard error checks
+    private static final int CONVERGENCE_BATCH = 500;
+
+    private final double[] heroWeights = new double[Combos.NUM_COMBOS];
+    private final double[] villainWeights = new double[Combos.NUM_COMBOS];
+    private final long[] heroBits = new long[Combos.WORDS];
+    private final long[] villainBits = new long[Combos.WORDS];
+    private final int[] fixedBoard;
+    private final long knownCards;
+
+    // Per-board scratch state
+    private final long[] blocked = new long[Combos.WORDS];
+    private final long[] heroLive = new long[Combos.WORDS];
+    private final long[] villainLive = new long[Combos.WORDS];
+    private final int[] scores = new int[Combos.NUM_COMBOS];
+    private final long[] heroSorted = new long[Combos.NUM_COMBOS];
+    private final long[] villainSorted = new long[Combos.NUM_COMBOS];
+    private final int[] holeCards = new int[2];
+    private final double[] cardTotal = new double[52];
+    private final double[] cardBelow = new double[52];
+    private final double[] cardEqual = new double[52];
+
+    // Accumulated weighted wins (ties count half) and matchup weights per combo
+    private final double[] heroNumerators = new double[Combos.NUM_COMBOS];
+    private final double[] heroDenominators = new double[Combos.NUM_COMBOS];
+    private final double[] villainNumerators = new double[Combos.NUM_COMBOS];
+    private final double[] villainDenominators = new double[Combos.NUM_COMBOS];
+    private double totalNumerator;
+    private double totalDenominator;
+    // Sums over boards of each board's numerator and denominator products, for the standard error
+    private double numeratorSquares;
+    private double denominatorSquares;
+    private double crossProducts;
+    private long boards;
+
+    /**
+     * @param hero      The first range
+     * @param villain   The second range
+     * @param board     Codes of the community cards already dealt
+     * @param deadCards Bit mask of other cards that cannot be dealt or held
+     */
+    public RangeVsRange(HandRange hero, HandRange villain, int[] board, long deadCards) {
+        long known = deadCards | Cards.mask(board, board.length);
+        this.fixedBoard = board.clone();
+        this.knownCards = known;
+        addRange(hero, known, heroWeights, heroBits);
+        addRange(villain, known, villainWeights, villainBits);
+    }
+
+    /**
+     * Runs the calculation, enumerating every board when at most {@code exactBoardLimit} remain.
+     * Otherwise boards are sampled in batches until the first range's equity has the target
+     * standard error or {@code maxBoards} have been dealt. Can only be called once per instance.
+     *
+     * @param targetStandardError Standard error to stop at, in percentage points (0 to deal every board of the budget)
+     */
+    public Result calculate(long exactBoardLimit, int maxBoards, double targetStandardError, CardRandom random) {
+        if (boards > 0) {
+            throw new IllegalStateException("Calculation already run");
+        }
+        if (!hasCompatibleMatchup()) {
+            throw new IllegalArgumentException("No compatible pair of combos in the two ranges");
+        }
+        int[] live = Cards.codes(Cards.FULL_DECK & ~knownCards);
+        int numLive = live.length;
+        int[] board = Arrays.copyOf(fixedBoard, 5);
+        int cardsToDeal = 5 - fixedBoard.length;
+
+        long possibleBoards = 1;
+        for (int i = 1; i <= cardsToDeal; i++) {
+            possibleBoards = possibleBoards * (numLive - cardsToDeal + i) / i;
+        }
+        boolean exact = possibleBoards <= exactBoardLimit;
+        if (exact) {
+            enumerateBoards(live, 0, fixedBoard.length, board);
+        } else {
+            Dealer dealer = new Dealer(live, random);
+            for (int b = 0; b < maxBoards; b++) {
+                for (int k = fixedBoard.length; k < 5; k++) {
+                    board[k] = dealer.deal();
+                }
+                addBoard(board);
+                dealer.restore(cardsToDeal);
+                if (targetStandardError > 0 && boards % CONVERGENCE_BATCH == 0
+                        && standardError() <= targetStandardError) {
+                    break;
+                }
+            }
+        }
+        double[] heroEquities = comboEquities(heroWeights, heroNumerators, heroDenominators);
+        double[] villainEquities = comboEquities(villainWeights, villainNumerators, villainDenominators);
+        return new Result(100.0 * totalNumerator / totalDenominator, exact ? 0.0 : standardError(),
+                heroEquities, villainEquities, histogram(heroEquities, heroWeights, heroDenominators),
+                histogram(villainEquities, villainWeights, villainDenominators), boards, exact);
+    }
+
+    /**
+     * Standard error of the sampled equity, in percentage points. The equity is a ratio of sums
+     * over boards, so its variance comes from each board's residual against the running ratio.
+     */
+    private double standardError() {
+        if (boards < 2 || totalDenominator == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double ratio = totalNumerator / totalDenominator;
+        double residualVariance = (numeratorSquares - 2 * ratio * crossProducts + ratio * ratio * denominatorSquares) / boards;
+        double meanDenominator = totalDenominator / boards;
+        return 100.0 * Math.sqrt(Math.max(0.0, residualVariance) / boards) / meanDenominator;
+    }
+
+    private void enumerateBoards(int[] live, int start, int filled, int[] board) {
+        if (filled == 5) {
+            addBoard(board);
+            return;
+        }
+        for (int i = start; i <= live.length - (5 - filled); i++) {
+            board[filled] = live[i];
+            enumerateBoards(live, i + 1, filled + 1, board);
+        }
+    }
+
+    private void addBoard(int[] board) {
+        Combos.blockedBy(Cards.mask(board, board.length), blocked);
+        for (int w = 0; w < Combos.WORDS; w++) {
+            heroLive[w] = heroBits[w] & ~blocked[w];
+            villainLive[w] = villainBits[w] & ~blocked[w];
+        }
+        // Every combo on this board shares the board's evaluator state
+        FastHandEvaluator.PartialHand boardHand = FastHandEvaluator.PartialHand.of(board, 0, 5);
+        int heroCount = scoreCombos(heroLive, boardHand, heroSorted);
+        int villainCount = scoreCombos(villainLive, boardHand, villainSorted);
+        double villainTotal = 0;
+        for (int i = 0; i < villainCount; i++) {
+            villainTotal += villainWeights[(int) (villainSorted[i] & 0x7FF)];
+        }
+        double heroTotal = 0;
+        for (int i = 0; i < heroCount; i++) {
+            heroTotal += heroWeights[(int) (heroSorted[i] & 0x7FF)];
+        }
+
+        double numeratorBefore = totalNumerator;
+        double denominatorBefore = totalDenominator;
+        accumulate(heroSorted, heroCount, heroWeights, villainSorted, villainCount, villainWeights,
+                villainLive, villainTotal, heroNumerators, heroDenominators, true);
+        accumulate(villainSorted, villainCount, villainWeights, heroSorted, heroCount, heroWeights,
+                heroLive, heroTotal, villainNumerators, villainDenominators, false);
+        double numerator = totalNumerator - numeratorBefore;
+        double denominator = totalDenominator - denominatorBefore;
+        numeratorSquares += numerator * numerator;
+        denominatorSquares += denominator * denominator;
+        crossProducts += numerator * denominator;
+        boards++;
+    }
+
+    /**
+     * Scores every combo in a live bitmap and fills {@code sorted} with (score, combo) pairs in increasing order.
+     *
+     * @return The number of live combos
+     */
+    private int scoreCombos(long[] liveBits, FastHandEvaluator.PartialHand boardHand, long[] sorted) {
+        int count = 0;
+        for (int w = 0; w < Combos.WORDS; w++) {
+            long bits = liveBits[w];
+            while (bits != 0) {
+                int combo = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                holeCards[0] = Combos.firstCard(combo);
+                holeCards[1] = Combos.secondCard(combo);
+                scores[combo] = boardHand.evaluate(holeCards, 0, 2);
+                sorted[count++] = (long) scores[combo] << 11 | combo;
+            }
+        }
+        Arrays.sort(sorted, 0, count);
+        return count;
+    }
+
+    /**
+     * Adds each combo's weighted wins and ties against the other side's live combos on this board.
+     *
+     * Opponent combos sharing a card with a combo (its row of the conflict bitmap) are taken out
+     * by inclusion-exclusion over per-card sums: the weight held by each card, split into the
+     * part below and the part equal to the current score as the sweep moves up. This replaces a
+     * walk over up to 101 conflicting combos for every combo with four array reads.
+     */
+    private void accumulate(long[] sorted, int count, double[] weights,
+                            long[] otherSorted, int otherCount, double[] otherWeights, long[] otherLive,
+                            double otherTotal, double[] numerators, double[] denominators, boolean addToTotal) {
+        Arrays.fill(cardTotal, 0.0);
+        Arrays.fill(cardBelow, 0.0);
+        Arrays.fill(cardEqual, 0.0);
+        for (int j = 0; j < otherCount; j++) {
+            int other = (int) (otherSorted[j] & 0x7FF);
+            cardTotal[Combos.firstCard(other)] += otherWeights[other];
+            cardTotal[Combos.secondCard(other)] += otherWeights[other];
+        }
+
+        int below = 0;
+        double belowWeight = 0;
+        int equal = 0;
+        double equalWeight = 0;
+        for (int i = 0; i < count; i++) {
+            int combo = (int) (sorted[i] & 0x7FF);
+            int score = (int) (sorted[i] >>> 11);
+            if (i == 0 || score != (int) (sorted[i - 1] >>> 11)) {
+                // New score: clear the previous tie group, move past the opponents it beats,
+                // then sum the ones it ties with
+                for (int j = below; j < equal; j++) {
+                    addToCards(otherSorted[j], otherWeights, cardEqual, -1.0);
+                }
+                while (below < otherCount && (int) (otherSorted[below] >>> 11) < score) {
+                    belowWeight += otherWeights[(int) (otherSorted[below] & 0x7FF)];
+                    addToCards(otherSorted[below], otherWeights, cardBelow, 1.0);
+                    below++;
+                }
+                equal = below;
+                equalWeight = 0;
+                while (equal < otherCount && (int) (otherSorted[equal] >>> 11) == score) {
+                    equalWeight += otherWeights[(int) (otherSorted[equal] & 0x7FF)];
+                    addToCards(otherSorted[equal], otherWeights, cardEqual, 1.0);
+                    equal++;
+                }
+            }
+
+            // The opponent holding the very same cards is counted under both cards, and always ties
+            int first = Combos.firstCard(combo);
+            int second = Combos.secondCard(combo);
+            double same = Combos.contains(otherLive, combo) ? otherWeights[combo] : 0.0;
+            double winWeight = belowWeight - cardBelow[first] - cardBelow[second];
+            double tieWeight = equalWeight - cardEqual[first] - cardEqual[second] + same;
+            double matchupWeight = otherTotal - cardTotal[first] - cardTotal[second] + same;
+
+            double numerator = winWeight + 0.5 * tieWeight;
+            numerators[combo] += numerator;
+            denominators[combo] += matchupWeight;
+            if (addToTotal) {
+                totalNumerator += weights[combo] * numerator;
+                totalDenominator += weights[combo] * matchupWeight;
+            }
+        }
+    }
+
+    private static void addToCards(long entry, double[] weights, double[] cardWeights, double sign) {
+        int combo = (int) (entry & 0x7FF);
+        cardWeights[Combos.firstCard(combo)] += sign * weights[combo];
+        cardWeights[Combos.secondCard(combo)] += sign * weights[combo];
+    }
+
+    /**
+     * Returns whether any hero combo has a villain combo it shares no card with, by ANDing the
+     * villain bitmap with the complement of each hero combo's conflict row.
+     */
+    private boolean hasCompatibleMatchup() {
+        for (int w = 0; w < Combos.WORDS; w++) {
+            long bits = heroBits[w];
+            while (bits != 0) {
+                int combo = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                long[] conflicts = Combos.conflicts(combo);
+                for (int v = 0; v < Combos.WORDS; v++) {
+                    if ((villainBits[v] & ~conflicts[v]) != 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void addRange(HandRange range, long knownCards, double[] weights, long[] bits) {
+        for (int i = 0; i < range.size(); i++) {
+            int first = range.firstCard(i);
+            int second = range.secondCard(i);
+            if (Cards.contains(knownCards, first) || Cards.contains(knownCards, second)) {
+                continue;
+            }
+            int combo = Combos.index(first, second);
+            weights[combo] = range.weight(i);
+            Combos.set(bits, combo);
+        }
+    }
+
+    private static double[] comboEquities(double[] weights, double[] numerators, double[] denominators) {
+        double[] equities = new double[Combos.NUM_COMBOS];
+        for (int combo = 0; combo < Combos.NUM_COMBOS; combo++) {
+            equities[combo] = weights[combo] > 0 && denominators[combo] > 0
+                    ? 100.0 * numerators[combo] / denominators[combo]
+                    : Double.NaN;
+        }
+        return equities;
+    }
+
+    /**
+     * Builds the distribution of per-combo equities. Each combo is weighted by its own weight times
+     * the opponent weight it was matched against, so the histogram's mean is the range's equity.
+     */
+    static EquityHistogram histogram(double[] comboEquities, double[] weights, double[] denominators) {
+        EquityHistogram histogram = new EquityHistogram();
+        for (int combo = 0; combo < Combos.NUM_COMBOS; combo++) {
+            if (!Double.isNaN(comboEquities[combo])) {
+                histogram.add(comboEquities[combo], weights[combo] * denominators[combo]);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Aggregate and per-combo equities of a range against range calculation.
+     * Per-combo arrays are indexed by {@link Combos} index and hold NaN for combos that were
+     * not in the range or never had a compatible opponent.
+     */
+    public static class Result {
+        private final double heroEquity;
+        private final double standardError;
+        private final double[] heroComboEquities;
+        private final double[] villainComboEquities;
+        private final EquityHistogram heroHistogram;
+        private final EquityHistogram villainHistogram;
+        private final long boards;
+        private final boolean exact;
+
+        Result(double heroEquity, double standardError, double[] heroComboEquities, double[] villainComboEquities,
+               EquityHistogram heroHistogram, EquityHistogram villainHistogram, long boards, boolean exact) {
+            this.heroEquity = heroEquity;
+            this.standardError = standardError;
+            this.heroComboEquities = heroComboEquities;
+            this.villainComboEquities = villainComboEquities;
+            this.heroHistogram = heroHistogram;
+            this.villainHistogram = villainHistogram;
+            this.boards = boards;
+            this.exact = exact;
+        }
+
+        /**
+         * Returns the first range's equity as a percentage.
+         */
+        public double getHeroEquity() {
+            return heroEquity;
+        }
+
+        /**
+         * Returns the second range's equity as a percentage.
+         */
+        public double getVillainEquity() {
+            return 100.0 - heroEquity;
+        }
+
+        /**
+         * Returns the standard error of both equities in percentage points, 0 for exact results.
+         */
+        public double getStandardError() {
+            return standardError;
+        }
+
+        public double getHeroComboEquity(int combo) {
+            return heroComboEquities[combo];
+        }
+
+        public double getVillainComboEquity(int combo) {
+            return villainComboEquities[combo];
+        }
+
+        public double[] getHeroComboEquities() {
+            return heroComboEquities.clone();
+        }
+
+        public double[] getVillainComboEquities() {
+            return villainComboEquities.clone();
+        }
+
+        /**
+         * Returns the distribution of the first range's per-combo equities.
+         */
+        public EquityHistogram getHeroHistogram() {
+            return heroHistogram;
+        }
+
+        /**
+         * Returns the distribution of the second range's per-combo equities.
+         */
+        public EquityHistogram getVillainHistogram() {
+            return villainHistogram;
+        }
+
+        public long getBoards() {
+            return boards;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.Arrays;
+
+/**
+ * Maps a spot (every player's hole cards, the board and the cards still in the deck) to a key
+ * shared by all spots that only differ by a renaming of suits.
+ *
+ * Suits carry no value of their own, so AsKs vs QhQd on Js Th 2d has exactly the same equities as
+ * AhKh vs QsQc on Jh Ts 2d. The key is the smallest of the 24 suit renamings of the spot, comparing
+ * the player card masks in seating order, then the board mask and the live card mask.
+ */
+public class SuitIsomorphism {
+    // Every ordering of the four suits; PERMUTATIONS[p][suit] is the suit it is renamed to
+    static final int[][] PERMUTATIONS = permutations();
+
+    private SuitIsomorphism() {
+    }
+
+    /**
+     * Returns the canonical key of a spot.
+     *
+     * @param holeCards  Two card codes per player, {@link FastHandEvaluator#NO_CARD} for missing cards
+     * @param numPlayers Number of players
+     * @param board      Community card codes
+     * @param boardCount Number of community cards
+     * @param liveMask   Bit mask of the card codes that can still be dealt
+     */
+    public static Key canonicalKey(int[] holeCards, int numPlayers, int[] board, int boardCount, long liveMask) {
+        long[] spot = new long[numPlayers + 2];
+        for (int i = 0; i < 2 * numPlayers; i++) {
+            if (holeCards[i] != FastHandEvaluator.NO_CARD) {
+                spot[i / 2] |= Cards.mask(holeCards[i]);
+            }
+        }
+        spot[numPlayers] = Cards.mask(board, boardCount);
+        spot[numPlayers + 1] = liveMask;
+        long[] best = null;
+        long[] renamed = new long[spot.length];
+        for (int[] permutation : PERMUTATIONS) {
+            for (int i = 0; i < spot.length; i++) {
+                renamed[i] = Cards.permuteSuits(spot[i], permutation);
+            }
+            if (best == null || Arrays.compare(renamed, best) < 0) {
+                best = renamed.clone();
+            }
+        }
+        return new Key(best);
+    }
+
+    /**
+     * Returns the suit renamings that leave every given card mask unchanged, always including the
+     * identity. Within a spot made of those masks, cards that one of them maps onto each other
+     * play identically.
+     */
+    public static int[][] symmetries(long... masks) {
+        int[][] symmetries = new int[PERMUTATIONS.length][];
+        int count = 0;
+        for (int[] permutation : PERMUTATIONS) {
+            boolean fixesAll = true;
+            for (long mask : masks) {
+                fixesAll &= Cards.permuteSuits(mask, permutation) == mask;
+            }
+            if (fixesAll) {
+                symmetries[count++] = permutation;
+            }
+        }
+        return Arrays.copyOf(symmetries, count);
+    }
+
+    private static int[][] permutations() {
+        int[][] permutations = new int[24][];
+        int count = 0;
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                for (int c = 0; c < 4; c++) {
+                    int d = 6 - a - b - c;
+                    if (a != b && a != c && b != c && d != a && d != b && d != c) {
+                        permutations[count++] = new int[]{a, b, c, d};
+                    }
+                }
+            }
+        }
+        return permutations;
+    }
+
+    /**
+     * Canonical form of a spot, usable as a hash key.
+     */
+    public static final class Key {
+        private final long[] masks;
+        private final int hash;
+
+        private Key(long[] masks) {
+            this.masks = masks;
+            this.hash = Arrays.hashCode(masks);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(masks, ((Key) other).masks);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (long mask : masks) {
+                text.append(text.length() == 0 ? "" : ":").append(Long.toHexString(mask));
+            }
+            return text.toString();
+        }
+    }
+}
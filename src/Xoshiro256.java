@@ -0,0 +1,42 @@
+/**
+ * xoshiro256** generator (Blackman and Vigna). Small state, no synchronisation,
+ * and a few cycles per number, which makes it a good fit for dealing boards.
+ */
+public class Xoshiro256 implements CardRandom {
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    public Xoshiro256(long seed) {
+        // Expand the seed with SplitMix64 so that nearby seeds give unrelated states
+        s0 = splitMix64(seed += 0x9E3779B97F4A7C15L);
+        s1 = splitMix64(seed += 0x9E3779B97F4A7C15L);
+        s2 = splitMix64(seed += 0x9E3779B97F4A7C15L);
+        s3 = splitMix64(seed + 0x9E3779B97F4A7C15L);
+    }
+
+    public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        // Multiply-shift range reduction; the bias is below bound / 2^32, far under sampling noise
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    private static long splitMix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}